@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.domain.service.MemberBulkLoader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 벤치마크용 스프링 컨텍스트
+// in-memory h2 에 teamCount 개의 팀과 memberCount 명의 회원을 넣고 시작한다.
+// 데이터 규칙은 MemberBulkLoader 참고 (teamA, teamB ... / 나이 0 ~ 99)
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, int teamCount, int memberCount) {
+        return start(WebApplicationType.NONE, name, teamCount, memberCount);
+    }
+
+    // 부하 테스트용으로 실제 http 포트(임의 포트)까지 띄움 (local.server.port)
+    // args 로 기본 설정을 덮어쓸 수 있음
+    public static ConfigurableApplicationContext startServer(String name, int teamCount, int memberCount, String... args) {
+        return start(WebApplicationType.SERVLET, name, teamCount, memberCount,
+            merge(new String[]{"--server.port=0"}, args));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String name,
+                                                        int teamCount, int memberCount, String... args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+            .web(webApplicationType)
+            .run(merge(
+                new String[]{
+                    // local 프로필의 InitMember 가 돌지 않도록
+                    "--spring.profiles.active=bench",
+                    "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.properties.hibernate.format_sql=false",
+                    "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                    "--logging.level.org.hibernate.SQL=warn",
+                    "--logging.level.org.hibernate.type=warn"
+                },
+                args
+            ));
+        context.getBean(MemberBulkLoader.class).load(teamCount, memberCount);
+        return context;
+    }
+
+    // 같은 옵션이 두번 오면 spring 은 값을 콤마로 이어 붙이므로 뒤의 값으로 교체
+    private static String[] merge(String[] defaults, String... overrides) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (String arg : defaults) {
+            args.put(optionName(arg), arg);
+        }
+        for (String arg : overrides) {
+            args.put(optionName(arg), arg);
+        }
+        return args.values().toArray(new String[0]);
+    }
+
+    private static String optionName(String arg) {
+        int index = arg.indexOf('=');
+        return index < 0 ? arg : arg.substring(0, index);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 같은 조건의 전체 조회를 QMemberTeamDto (row 마다 DTO) 와 MemberTeamColumns (컬럼별 배열) 로 비교
+// *SumAge : 조회 후 나이 합계까지 (DTO 는 Integer unboxing, 컬럼은 int[] 순회)
+// 할당량은 gc 프로파일러의 gc.alloc.rate.norm 으로 확인 (./gradlew jmh -Pjmh.profilers=gc)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnarProjectionBenchmark {
+
+    @Param({"10"})
+    int teamCount;
+
+    @Param({"100000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("columnar", teamCount, memberCount);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dto() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public MemberTeamColumns columns() {
+        return memberRepository.searchColumns(condition);
+    }
+
+    // 기존 코드가 adapter 로 DTO 를 받아가는 경우
+    @Benchmark
+    public List<MemberTeamDto> columnsToDto() {
+        return memberRepository.searchColumns(condition).toDtoList();
+    }
+
+    @Benchmark
+    public long dtoSumAge() {
+        long sum = 0;
+        for (MemberTeamDto dto : memberRepository.search(condition)) {
+            sum += dto.getAge();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long columnsSumAge() {
+        MemberTeamColumns columns = memberRepository.searchColumns(condition);
+        int[] ages = columns.ageColumn();
+        long sum = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            sum += ages[row];
+        }
+        return sum;
+    }
+}
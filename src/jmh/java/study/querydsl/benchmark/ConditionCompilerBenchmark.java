@@ -0,0 +1,136 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.domain.entity.QMember.member;
+import static study.querydsl.domain.entity.QTeam.team;
+
+// 매번 조건 표현식을 새로 만드는 방식(rebuild) 과 shape 별로 만들어둔 쿼리에 값만 바인딩하는 방식(compiled) 비교
+// *Jpql : 쿼리 생성 + JPQL 직렬화까지 (DB 를 타지 않음), *Fetch : 실제 조회까지
+// 할당량은 gc 프로파일러의 gc.alloc.rate.norm 으로 확인
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConditionCompilerBenchmark {
+
+    @Param({"10"})
+    int teamCount;
+
+    @Param({"10000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private MemberConditionCompiler conditionCompiler;
+
+    // 값이 매번 달라도 shape 는 같음
+    private final MemberSearchCondition[] conditions = new MemberSearchCondition[16];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("compiler", teamCount, memberCount);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        conditionCompiler = context.getBean(MemberConditionCompiler.class);
+
+        for (int i = 0; i < conditions.length; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(i % 2 == 0 ? "teamA" : "teamB");
+            condition.setAgeGoe(i);
+            condition.setAgeLoe(i + 20);
+            conditions[i] = condition;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String rebuildJpql() {
+        return rebuild(nextCondition()).toString();
+    }
+
+    @Benchmark
+    public String compiledJpql() {
+        return conditionCompiler.contentQuery(nextCondition()).toString();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> rebuildFetch() {
+        return rebuild(nextCondition()).limit(20).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> compiledFetch() {
+        return conditionCompiler.contentQuery(nextCondition()).limit(20).fetch();
+    }
+
+    private MemberSearchCondition nextCondition() {
+        next = (next + 1) % conditions.length;
+        return conditions[next];
+    }
+
+    // MemberConditionCompiler 도입 전 repository 들의 방식
+    private JPAQuery<MemberTeamDto> rebuild(MemberSearchCondition condition) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+            .select(
+                new QMemberTeamDto(
+                    member.id.as("memberId"),
+                    member.username,
+                    member.age,
+                    team.id.as("teamId"),
+                    team.name.as("teamName")
+                )
+            )
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(
+            usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.repository.MemberJpaRepository;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.domain.repository.MemberTestRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 같은 검색 조건을 repository 구현 방식 별로 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberSearchBenchmark {
+
+    @Param({"10"})
+    int teamCount;
+
+    @Param({"10000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private MemberTestRepository memberTestRepository;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final Pageable pageable = PageRequest.of(1, 20);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("search", teamCount, memberCount);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearch() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<Member> searchPageByApplyPage() {
+        return memberTestRepository.searchPageByApplyPage(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<Member> applyPagination() {
+        return memberTestRepository.applyPagination(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<Member> applyPaginationWithCountQuery() {
+        return memberTestRepository.applyPagination2(condition, pageable);
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.domain.entity.QMember.member;
+
+// 페이지 깊이에 따른 offset 페이징과 keyset 페이징(searchSlice) 비교
+// offset 은 페이지가 깊어질수록 느려지고 keyset 은 일정해야 한다.
+// 두 방식 모두 count 쿼리는 빼고 member.id 순으로 size + 1 개를 조회해서 비교 (같은 페이지를 읽음)
+// searchPage 는 정렬을 하지 않으므로 offset 쪽은 같은 조건 쿼리에 정렬과 offset 을 직접 붙임
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageDepthBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    int memberCount;
+
+    @Param({"0", "100", "1000", "10000", "49000"})
+    int pageNumber;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberConditionCompiler conditionCompiler;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private Long lastMemberId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("depth", 10, memberCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        conditionCompiler = context.getBean(MemberConditionCompiler.class);
+
+        // 같은 순서 (member.id) 로 읽은 이전 페이지의 마지막 id 를 커서로 사용
+        if (pageNumber > 0) {
+            Slice<MemberTeamDto> previous = offsetPage(pageNumber - 1);
+            lastMemberId = previous.getContent().get(previous.getNumberOfElements() - 1).getMemberId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> offset() {
+        return offsetPage(pageNumber);
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> keyset() {
+        return memberRepository.searchSlice(condition, lastMemberId, PAGE_SIZE);
+    }
+
+    // searchSlice 와 같은 쿼리에서 커서 조건 대신 offset 만 다름
+    private Slice<MemberTeamDto> offsetPage(int page) {
+        List<MemberTeamDto> results = conditionCompiler.contentQuery(condition)
+            .orderBy(member.id.asc())
+            .offset((long) page * PAGE_SIZE)
+            .limit(PAGE_SIZE + 1L)
+            .fetch();
+        boolean hasNext = results.size() > PAGE_SIZE;
+        if (hasNext) {
+            results.remove(PAGE_SIZE);
+        }
+        return new SliceImpl<>(results, PageRequest.of(page, PAGE_SIZE), hasNext);
+    }
+}
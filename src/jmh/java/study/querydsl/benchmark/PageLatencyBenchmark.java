@@ -0,0 +1,62 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.concurrent.TimeUnit;
+
+// 컨텐츠/count 쿼리를 순서대로 실행(searchPageComplex) vs 동시에 실행(searchPageParallel) 했을 때의 페이지 응답 시간
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageLatencyBenchmark {
+
+    @Param({"100000"})
+    int memberCount;
+
+    @Param({"0", "1000"})
+    int pageNumber;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("latency", 10, memberCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition.setAgeGoe(10);
+        pageable = PageRequest.of(pageNumber, 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> sequential() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> parallel() {
+        return memberRepository.searchPageParallel(condition, pageable);
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.controller.CompactPageWriter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Page<MemberTeamDto> 를 jackson 기본 직렬화 (지금 /api/v2/members 응답) 와 CompactPageWriter 로 쓸 때 비교
+// 응답 크기는 setUp 에서 한번 출력, 할당량은 gc 프로파일러의 gc.alloc.rate.norm 으로 확인
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CompactPageWriter compactPageWriter = new CompactPageWriter(objectMapper);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+    private Page<MemberTeamDto> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(1, pageSize), 100_000);
+
+        System.out.printf("%npageSize=%d bytes: jackson=%d, rows=%d, columnar=%d%n", pageSize,
+            jackson().size(), rows().size(), columnar().size());
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream jackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream rows() throws IOException {
+        out.reset();
+        compactPageWriter.write(page, false, out);
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream columnar() throws IOException {
+        out.reset();
+        compactPageWriter.write(page, true, out);
+        return out;
+    }
+}
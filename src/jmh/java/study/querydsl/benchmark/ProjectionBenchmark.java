@@ -0,0 +1,78 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberQueryProjectionDto;
+import study.querydsl.dto.QMemberQueryProjectionDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.domain.entity.QMember.member;
+
+// QueryDslBasicTest 의 DTO 조회 방식 비교 (setter, field, 생성자, @QueryProjection)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"10000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("projection", 10, memberCount);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return queryFactory
+            .select(Projections.bean(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return queryFactory
+            .select(Projections.fields(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return queryFactory
+            .select(Projections.constructor(MemberDto.class, member.username, member.age))
+            .from(member)
+            .fetch();
+    }
+
+    @Benchmark
+    public List<MemberQueryProjectionDto> queryProjection() {
+        return queryFactory
+            .select(new QMemberQueryProjectionDto(member.username, member.age))
+            .from(member)
+            .fetch();
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static study.querydsl.domain.entity.QMember.member;
+import static study.querydsl.domain.entity.QTeam.team;
+
+// 큰 조회 결과를 들고 있을 때 힙 사용량 비교
+// plain : QMemberTeamDto (row 마다 팀 이름 String), interned : MemberConditionCompiler (TeamNameDictionary 의 String 공유)
+// 보조 카운터 : retainedBytes (조회 전후 GC 후 힙 사용량 차이, 대략값), teamNameInstances (서로 다른 팀 이름 String 인스턴스 수)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamNameHeapBenchmark {
+
+    @Param({"10"})
+    int teamCount;
+
+    @Param({"100000"})
+    int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private MemberConditionCompiler conditionCompiler;
+    private TransactionTemplate readOnly;
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+        public long retainedBytes;
+        public long teamNameInstances;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+            teamNameInstances = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("teamname", teamCount, memberCount);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        conditionCompiler = context.getBean(MemberConditionCompiler.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> plain(HeapCounters counters) {
+        return measure(counters, () -> queryFactory
+            .select(
+                new QMemberTeamDto(
+                    member.id.as("memberId"),
+                    member.username,
+                    member.age,
+                    team.id.as("teamId"),
+                    team.name.as("teamName")
+                )
+            )
+            .from(member)
+            .leftJoin(member.team, team)
+            .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> interned(HeapCounters counters) {
+        return measure(counters, () -> conditionCompiler.contentQuery(condition).fetch());
+    }
+
+    private List<MemberTeamDto> measure(HeapCounters counters, Supplier<List<MemberTeamDto>> query) {
+        long before = usedHeapAfterGc();
+        List<MemberTeamDto> rows = readOnly.execute(status -> query.get());
+        counters.retainedBytes += usedHeapAfterGc() - before;
+
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MemberTeamDto row : rows) {
+            if (row.getTeamName() != null) {
+                instances.add(row.getTeamName());
+            }
+        }
+        counters.teamNameInstances += instances.size();
+        return rows;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
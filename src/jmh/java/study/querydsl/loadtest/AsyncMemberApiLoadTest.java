@@ -0,0 +1,48 @@
+package study.querydsl.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.benchmark.BenchmarkContext;
+
+import java.net.URI;
+import java.time.Duration;
+
+// 같은 조회를 동기(/api/v2) 와 비동기(/api/async/v2) api 로 나눠서 동시 요청 1000 개 기준 처리량, tail latency 비교
+// 비동기 api 는 db.executor 가 꽉 차면 503 을 주므로 errors 도 같이 확인
+// ./gradlew loadTest -PloadTestMain=study.querydsl.loadtest.AsyncMemberApiLoadTest
+// 설정 : loadTest.clients, loadTest.durationSeconds, loadTest.poolSize, loadTest.queueCapacity, loadTest.query
+public class AsyncMemberApiLoadTest {
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("loadTest.clients", 1000);
+        int poolSize = Integer.getInteger("loadTest.poolSize", 10);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadTest.durationSeconds", 20));
+        String query = System.getProperty("loadTest.query", "teamName=teamB&ageGoe=20&ageLoe=40&page=1&size=20");
+
+        ConfigurableApplicationContext context = BenchmarkContext.startServer("async-loadtest",
+            Integer.getInteger("loadTest.teamCount", 10),
+            Integer.getInteger("loadTest.memberCount", 100_000),
+            "--spring.profiles.active=bench,perf",
+            "--spring.datasource.url=jdbc:h2:mem:async-loadtest;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64",
+            "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+            "--spring.datasource.hikari.minimum-idle=" + poolSize,
+            "--member.async.enabled=true",
+            "--db.executor.concurrency=" + poolSize,
+            "--db.executor.queue-capacity=" + Integer.getInteger("loadTest.queueCapacity", clients));
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpLoadGenerator generator = new HttpLoadGenerator();
+
+            System.out.printf("%d clients, pool size %d%n", clients, poolSize);
+            System.out.println(String.format("%-6s ", "mode") + HttpLoadGenerator.Result.header());
+            for (String mode : new String[]{"sync", "async"}) {
+                URI uri = URI.create(baseUrl + ("sync".equals(mode) ? "/api/v2/members?" : "/api/async/v2/members?") + query);
+                // warm up
+                generator.run(uri, Math.min(clients, 50), Duration.ofSeconds(5));
+
+                HttpLoadGenerator.Result result = generator.run(uri, clients, duration);
+                System.out.println(String.format("%-6s ", mode) + result.row());
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
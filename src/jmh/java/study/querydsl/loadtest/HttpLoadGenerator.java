@@ -0,0 +1,113 @@
+package study.querydsl.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// closed-loop 부하 생성기
+// concurrency 개의 클라이언트가 각자 응답을 받으면 바로 다음 요청을 보낸다. (200 이 아니면 에러)
+public class HttpLoadGenerator {
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    public Result run(URI uri, int concurrency, Duration duration) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+
+        // 클라이언트 별로 응답 시간을 모아서 끝나고 합침
+        List<List<Long>> latencies = new ArrayList<>();
+        LongAdder errors = new LongAdder();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            List<Long> clientLatencies = new ArrayList<>();
+            latencies.add(clientLatencies);
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            clientLatencies.add(System.nanoTime() - requestStart);
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = latencies.stream()
+            .flatMap(List::stream)
+            .mapToLong(Long::longValue)
+            .sorted()
+            .toArray();
+        return new Result(concurrency, sorted, errors.sum(), elapsed);
+    }
+
+    public static class Result {
+        private final int concurrency;
+        private final long[] sortedLatencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        private Result(int concurrency, long[] sortedLatencies, long errors, long elapsedNanos) {
+            this.concurrency = concurrency;
+            this.sortedLatencies = sortedLatencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        // 성공한 요청 기준 초당 처리량
+        public double getThroughput() {
+            return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        public static String header() {
+            return String.format("%11s %12s %9s %9s %9s %8s", "concurrency", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "errors");
+        }
+
+        public String row() {
+            return String.format("%11d %12.1f %9.2f %9.2f %9.2f %8d", concurrency, getThroughput(),
+                percentileMillis(0.5), percentileMillis(0.99), percentileMillis(0.999), errors);
+        }
+    }
+}
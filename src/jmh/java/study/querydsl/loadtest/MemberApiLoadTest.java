@@ -0,0 +1,69 @@
+package study.querydsl.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.benchmark.BenchmarkContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// 주어진 커넥션 풀 크기에서 /api/v2/members 의 포화 지점 찾기
+// 동시 요청 수를 늘려가면서 처리량이 더 이상 늘지 않는 (10% 미만) 지점을 찾는다.
+// ./gradlew loadTest -PloadTest.poolSize=10 -PloadTest.concurrency=1,2,4,8,16,32,64
+// 설정 : loadTest.poolSize, loadTest.concurrency, loadTest.durationSeconds, loadTest.path, loadTest.teamCount, loadTest.memberCount
+public class MemberApiLoadTest {
+    public static void main(String[] args) throws Exception {
+        int poolSize = Integer.getInteger("loadTest.poolSize", 10);
+        int[] concurrencies = Arrays.stream(System.getProperty("loadTest.concurrency", "1,2,4,8,16,32,64,128").split(","))
+            .mapToInt(value -> Integer.parseInt(value.trim()))
+            .toArray();
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadTest.durationSeconds", 10));
+        String path = System.getProperty("loadTest.path", "/api/v2/members?teamName=teamB&ageGoe=20&ageLoe=40&page=1&size=20");
+
+        ConfigurableApplicationContext context = BenchmarkContext.startServer("loadtest",
+            Integer.getInteger("loadTest.teamCount", 10),
+            Integer.getInteger("loadTest.memberCount", 100_000),
+            "--spring.profiles.active=bench,perf",
+            "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64",
+            "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+            "--spring.datasource.hikari.minimum-idle=" + poolSize);
+        try {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            HttpLoadGenerator generator = new HttpLoadGenerator();
+
+            // warm up (jit, 커넥션 풀)
+            generator.run(uri, concurrencies[0], duration);
+
+            System.out.printf("%s pool size %d%n", uri, poolSize);
+            System.out.println(HttpLoadGenerator.Result.header() + String.format(" %12s", "acquire(ms)"));
+            HttpLoadGenerator.Result previous = null;
+            Integer saturation = null;
+            for (int concurrency : concurrencies) {
+                Timer acquire = registry.get("hikaricp.connections.acquire").tag("pool", "primary").timer();
+                long acquireCount = acquire.count();
+                double acquireTime = acquire.totalTime(TimeUnit.MILLISECONDS);
+
+                HttpLoadGenerator.Result result = generator.run(uri, concurrency, duration);
+
+                // 이번 단계에서 풀에서 커넥션을 얻기까지 기다린 평균 시간
+                long acquired = acquire.count() - acquireCount;
+                double acquireMean = acquired > 0 ? (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireTime) / acquired : 0;
+                System.out.println(result.row() + String.format(" %12.3f", acquireMean));
+
+                if (saturation == null && previous != null && result.getThroughput() < previous.getThroughput() * 1.1) {
+                    saturation = previous.getConcurrency();
+                }
+                previous = result;
+            }
+            System.out.println(saturation != null
+                ? String.format("saturation : ~%d concurrent requests (pool size %d)", saturation, poolSize)
+                : "saturation : not reached, try higher concurrency");
+        } finally {
+            context.close();
+        }
+    }
+}
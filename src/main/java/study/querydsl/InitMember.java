@@ -3,43 +3,22 @@ package study.querydsl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.domain.entity.Member;
-import study.querydsl.domain.entity.Team;
+import study.querydsl.config.MemberSeedProperties;
+import study.querydsl.domain.service.MemberBulkLoader;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
+// 데이터 수는 member.seed.team-count, member.seed.member-count 로 조절
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberBulkLoader memberBulkLoader;
+    private final MemberSeedProperties properties;
 
     @PostConstruct
     public void init() {
-        initMemberService.init();
-    }
-
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
-        }
+        memberBulkLoader.load(properties.getTeamCount(), properties.getMemberCount());
     }
 }
@@ -0,0 +1,54 @@
+package study.querydsl.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 메모리 구조를 DB 에서 다시 만드는 작업을 별도 스레드 하나에서 실행
+// 커밋 후 이벤트를 보낸 스레드(요청 스레드)가 전체 조회를 기다리지 않도록 하고, 밀린 요청은 한번으로 합친다.
+// 실행중에 요청이 오면 끝난 뒤 한번 더 실행 (요청 전에 커밋된 변경은 항상 반영됨)
+@Slf4j
+public class BackgroundRefresh {
+    private final String name;
+    private final Runnable task;
+    private final ExecutorService executor;
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    public BackgroundRefresh(String name, Runnable task) {
+        this.name = name;
+        this.task = task;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void request() {
+        if (!requested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            // 종료중
+            requested.set(false);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        requested.set(false);
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("{} failed", name, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.DbExecutorProperties;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// DB 작업 전용 executor
+// 실행중 + 대기중 작업 수를 concurrency + queueCapacity 로 제한하고, 넘치면 바로 거절한다. (backpressure)
+// 가상 스레드를 쓸 수 있으면 작업마다 가상 스레드를 만들고 동시 실행 수는 세마포어로 제한
+@Slf4j
+@Component
+public class DbTaskExecutor implements DisposableBean {
+    // 지금 스레드가 이 executor 의 작업을 실행중인지 (작업 안에서 다시 작업을 제출하고 기다리면 풀이 꽉 찼을 때 서로 기다리게 됨)
+    private static final ThreadLocal<Boolean> IN_TASK = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService executor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final boolean virtualThreads;
+
+    public DbTaskExecutor(DbExecutorProperties properties) {
+        ExecutorService virtual = properties.isVirtualThreads() ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadExecutor(properties);
+        this.admitted = new Semaphore(properties.getConcurrency() + properties.getQueueCapacity());
+        this.running = virtual != null ? new Semaphore(properties.getConcurrency()) : null;
+        log.info("db task executor started. virtualThreads={}, concurrency={}, queueCapacity={}",
+            virtualThreads, properties.getConcurrency(), properties.getQueueCapacity());
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isInTask() {
+        return IN_TASK.get();
+    }
+
+    // 반환한 future 를 시작 전에 cancel 하면 작업은 실행하지 않음 (자리는 반납)
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("db task executor is saturated");
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!future.isDone()) {
+                        future.complete(run(task));
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw e;
+        }
+        return future;
+    }
+
+    private <T> T run(Supplier<T> task) {
+        IN_TASK.set(true);
+        try {
+            if (running == null) {
+                return task.get();
+            }
+            running.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                running.release();
+            }
+        } finally {
+            IN_TASK.remove();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(DbExecutorProperties properties) {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(
+            properties.getConcurrency(), properties.getConcurrency(),
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "db-task-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    // 컴파일은 Java 11 기준이므로 Java 21 의 Executors.newVirtualThreadPerTaskExecutor 는 리플렉션으로 찾음
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
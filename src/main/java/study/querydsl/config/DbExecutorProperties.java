@@ -0,0 +1,19 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "db.executor")
+public class DbExecutorProperties {
+    // 동시에 실행할 DB 작업 수 (커넥션 풀 크기보다 크게 잡을 필요 없음)
+    private int concurrency = 8;
+    // 실행을 기다릴 수 있는 작업 수, 넘으면 바로 거절 (RejectedExecutionException)
+    private int queueCapacity = 256;
+    // 런타임이 지원하면 (Java 21+) 가상 스레드 사용
+    private boolean virtualThreads = true;
+}
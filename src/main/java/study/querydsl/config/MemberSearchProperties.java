@@ -0,0 +1,57 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "member.search")
+public class MemberSearchProperties {
+    // CountStrategy.CACHED 에서 사용하는 count 캐시
+    private Duration countCacheTtl = Duration.ofSeconds(30);
+    private long countCacheMaxSize = 1_000;
+
+    // searchPageParallel 에서 별도 스레드의 count 를 기다리는 시간
+    // 넘으면 아직 시작하지 않은 count 는 취소하고 지금 스레드에서 직접 센다 (컨텐츠 조회 커넥션은 이미 반납한 상태)
+    private Duration parallelCountTimeout = Duration.ofMillis(500);
+
+    // CountStrategy.ESTIMATED 에서 여기까지만 센다
+    private long estimatedCountLimit = 10_000;
+
+    // /api/v1/members 검색 결과 캐시 (크기는 캐시된 row 수 기준)
+    private Duration resultCacheTtl = Duration.ofSeconds(10);
+    private long resultCacheMaxRows = 100_000;
+
+    // 조회 api 의 ETag / 304 응답 (DataVersion)
+    // DataVersion 은 이 서버의 엔티티 이벤트로만 올라가므로 여러 대로 띄우거나 이벤트 없이 DB 를 바꾸는 경우에는 끌 것
+    private boolean etagEnabled = true;
+
+    // 스트리밍 조회시 JDBC 에서 한번에 가져오는 row 수
+    private int streamFetchSize = 500;
+    // /api/v1/members/export 트랜잭션 timeout (다 내려보낼 때까지 커넥션을 잡고 있으므로 상한을 둠)
+    // 느린 클라이언트가 커넥션을 계속 잡고 있지 못하도록 넘으면 조회를 끊음
+    private Duration exportTimeout = Duration.ofMinutes(5);
+
+    // querydsl 조회에 hibernate 쿼리 캐시 사용 여부 (QueryCacheHints)
+    private boolean queryCache = false;
+
+    // bulk update/delete 를 한번에 처리할 회원 수 (in 절 크기)
+    private int bulkChunkSize = 1_000;
+
+    // id 목록 조회(findAllByIds) 시 in 절 하나에 넣을 id 수
+    // in_clause_parameter_padding 으로 2의 거듭제곱까지 채워지므로 2의 거듭제곱으로 설정
+    private int idLookupChunkSize = 512;
+
+    // usernamePrefix / usernameContains 를 메모리 인덱스(UsernameIndex) 로 찾을지
+    // 회원 전체 이름을 힙에 들고 있으므로 (회원당 약 0.5KB) 기본은 끔
+    private boolean usernameIndexEnabled = false;
+    // usernamePrefix / usernameContains 에 맞는 회원이 이보다 많으면 id 목록 대신 like 로 조회
+    private int usernameIndexMaxIds = 1_000;
+    // UsernameIndex 가 한번 찾을 때 확인하는 후보 회원 수 상한 (넘으면 like 로 조회)
+    private int usernameIndexMaxCandidates = 10_000;
+}
@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "member.seed")
+public class MemberSeedProperties {
+    // local 프로필 기동시 넣을 데이터 수
+    private int teamCount = 2;
+    private int memberCount = 100;
+
+    // JDBC batch 한번에 보낼 insert 수 (MemberBulkLoader)
+    private int batchSize = 500;
+    // 트랜잭션 하나에서 저장할 회원 수
+    private int chunkSize = 100_000;
+}
@@ -0,0 +1,19 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "optimistic.retry")
+public class OptimisticRetryProperties {
+    // 처음 시도를 포함한 최대 실행 횟수
+    private int maxAttempts = 5;
+    // 재시도 전 대기 시간 (시도할 때마다 배로 늘리고 0 ~ backoff 사이의 랜덤 값 만큼 더 기다림)
+    private Duration backoff = Duration.ofMillis(5);
+}
@@ -0,0 +1,47 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+// 캐시, 메모리 인덱스를 채우는 조회용 읽기 전용 트랜잭션
+// - 항상 새 트랜잭션 (커밋 후 이벤트에서 호출되어도 끝난 트랜잭션에 참여하지 않고, 바깥 트랜잭션의 replica 커넥션도 쓰지 않음)
+// - replica 가 설정되어 있어도 primary 에서 조회 (replica 가 늦으면 커밋 전 값이 커밋 후 DataVersion 으로 캐시됨)
+// 새 트랜잭션은 커넥션을 하나 더 빌리므로 트랜잭션(커넥션) 을 잡고 있지 않은 곳에서만 사용
+// (시작할 때, 이벤트로 다시 읽을 때, 트랜잭션 밖의 캐시 miss)
+@Component
+public class PrimaryReadTemplate {
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate snapshot;
+    private final boolean replicaConfigured;
+
+    public PrimaryReadTemplate(PlatformTransactionManager transactionManager,
+                               @Value("${spring.datasource.replica.url:}") String replicaUrl) {
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshot = new TransactionTemplate(transactionManager, readOnly);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.replicaConfigured = !replicaUrl.isEmpty();
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        return ReadOnlyRoutingDataSource.onPrimary(() -> readOnly.execute(status -> work.get()));
+    }
+
+    // 여러 쿼리가 같은 시점의 데이터를 보아야 할 때 (h2 의 serializable 은 읽기만 하면 snapshot 으로 동작, lock 없음)
+    public <T> T executeSnapshot(Supplier<T> work) {
+        return ReadOnlyRoutingDataSource.onPrimary(() -> snapshot.execute(status -> work.get()));
+    }
+
+    // 지금 트랜잭션의 커넥션이 primary 인지 (트랜잭션 안의 캐시 miss 를 지금 커넥션으로 조회했을 때 캐시해도 되는지)
+    public boolean isCurrentTransactionOnPrimary() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+            && (!replicaConfigured || ReadOnlyRoutingDataSource.routesToPrimary());
+    }
+}
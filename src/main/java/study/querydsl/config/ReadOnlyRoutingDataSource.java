@@ -0,0 +1,38 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// 읽기 전용 트랜잭션(@Transactional(readOnly = true)) 이면 replica, 나머지는 primary 로 보냄
+// 트랜잭션 시작 시점에는 아직 readOnly 여부가 설정되기 전이므로 LazyConnectionDataSourceProxy 로 감싸서
+// 실제 커넥션을 첫 쿼리 때 가져오도록 해야 한다. (ReplicaDataSourceConfig)
+// 캐시, 메모리 인덱스를 채우는 조회는 replica 지연으로 옛 값이 새 DataVersion 에 묶이지 않도록 primary 로 보냄 (PrimaryReadTemplate)
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = ThreadLocal.withInitial(() -> false);
+
+    // work 안에서 새로 가져오는 커넥션은 읽기 전용 트랜잭션이어도 primary
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(true);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.set(previous);
+        }
+    }
+
+    // 지금 스레드에서 가져오는 커넥션이 primary 인지
+    public static boolean routesToPrimary() {
+        return PRIMARY_ONLY.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return routesToPrimary() ? PRIMARY : REPLICA;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled 사용 (TeamStatistics 검증 등)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,92 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.concurrent.DbTaskExecutor;
+import study.querydsl.domain.repository.MemberJpaRepository;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.enums.CountStrategy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+// MemberController 의 조회 api 를 비동기로 실행 (member.async.enabled=true 일 때만 등록)
+// tomcat 스레드는 요청을 넘기고 바로 반환되고, 조회는 DbTaskExecutor 에서 실행된다. (지원하면 가상 스레드)
+// executor 가 꽉 차면 기다리지 않고 503 으로 응답 (backpressure)
+// ETag / 304 는 동기 api 와 같음 (MemberSearchEtag), 304 면 executor 에 넘기지 않고 요청 스레드에서 끝냄
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/async")
+@ConditionalOnProperty(prefix = "member.async", name = "enabled", havingValue = "true")
+public class AsyncMemberController {
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final DbTaskExecutor dbTaskExecutor;
+    private final MemberSearchEtag searchEtag;
+
+    @GetMapping("/v1/members")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (searchEtag.notModified(request)) {
+            return null;
+        }
+        return dbTaskExecutor.submit(() -> memberJpaRepository.searchCached(condition));
+    }
+
+    @GetMapping("/v2/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                                                  WebRequest request) {
+        if (searchEtag.notModified(request)) {
+            return null;
+        }
+        return dbTaskExecutor.submit(() -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    // 동기 api 의 /v2/members/slice 와 같음
+    @GetMapping("/v2/members/slice")
+    public CompletableFuture<Slice<MemberTeamDto>> searchMemberV2Slice(
+        MemberSearchCondition condition,
+        Pageable pageable,
+        @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+        WebRequest request
+    ) {
+        if (searchEtag.notModified(request)) {
+            return null;
+        }
+        return dbTaskExecutor.submit(() -> countStrategy == CountStrategy.EXACT
+            ? memberRepository.searchPageSimple(condition, pageable)
+            : memberRepository.searchPage(condition, pageable, countStrategy));
+    }
+
+    // searchPageParallel 은 count 를 같은 executor 에 다시 넣고 기다리므로
+    // executor 안에서 쓰면 서로 기다리다 멈출 수 있어서 순서대로 조회
+    @GetMapping("/v3/members")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                                                  WebRequest request) {
+        if (searchEtag.notModified(request)) {
+            return null;
+        }
+        return dbTaskExecutor.submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> rejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .build();
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.common.EstimatedPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// MemberTeamDto 페이지를 reflection 없이 JsonGenerator 로 출력 스트림에 바로 씀
+// pageable, sort 같은 메타데이터는 빼고 page, size, hasNext, totalElements(Page 일 때만) 만 내려준다.
+// - rows    : {"content":[{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"}, ...], ...}
+// - columnar: {"memberId":[1, ...],"username":["member1", ...],"age":[10, ...],"teamId":[1, ...],"teamName":["teamA", ...], ...}
+//   필드 이름이 한번만 나가므로 큰 페이지에서 크기가 많이 줄어듦
+@Component
+@RequiredArgsConstructor
+public class CompactPageWriter {
+    private final ObjectMapper objectMapper;
+
+    public void write(Slice<MemberTeamDto> page, boolean columnar, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            // 응답 스트림은 spring 이 닫음
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            if (columnar) {
+                writeColumns(generator, page.getContent());
+            } else {
+                writeRows(generator, page.getContent());
+            }
+            generator.writeNumberField("page", page.getNumber());
+            generator.writeNumberField("size", page.getSize());
+            generator.writeBooleanField("hasNext", page.hasNext());
+            if (page instanceof Page) {
+                generator.writeNumberField("totalElements", ((Page<MemberTeamDto>) page).getTotalElements());
+            }
+            if (page instanceof EstimatedPage) {
+                generator.writeBooleanField("totalCapped", ((EstimatedPage<MemberTeamDto>) page).isTotalCapped());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeRows(JsonGenerator generator, List<MemberTeamDto> content) throws IOException {
+        generator.writeArrayFieldStart("content");
+        for (MemberTeamDto dto : content) {
+            generator.writeStartObject();
+            writeNumberField(generator, "memberId", dto.getMemberId());
+            generator.writeStringField("username", dto.getUsername());
+            writeNumberField(generator, "age", dto.getAge());
+            writeNumberField(generator, "teamId", dto.getTeamId());
+            generator.writeStringField("teamName", dto.getTeamName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeColumns(JsonGenerator generator, List<MemberTeamDto> content) throws IOException {
+        generator.writeArrayFieldStart("memberId");
+        for (MemberTeamDto dto : content) {
+            writeNumber(generator, dto.getMemberId());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("username");
+        for (MemberTeamDto dto : content) {
+            generator.writeString(dto.getUsername());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("age");
+        for (MemberTeamDto dto : content) {
+            writeNumber(generator, dto.getAge());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("teamId");
+        for (MemberTeamDto dto : content) {
+            writeNumber(generator, dto.getTeamId());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("teamName");
+        for (MemberTeamDto dto : content) {
+            generator.writeString(dto.getTeamName());
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Number value) throws IOException {
+        generator.writeFieldName(name);
+        writeNumber(generator, value);
+    }
+
+    // 팀이 없는 회원은 teamId 가 null
+    private static void writeNumber(JsonGenerator generator, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer) {
+            generator.writeNumber(value.intValue());
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.config.MemberSearchProperties;
 import study.querydsl.domain.repository.MemberJpaRepository;
 import study.querydsl.domain.repository.MemberRepository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.enums.CountStrategy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,20 +38,144 @@ import java.util.List;
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final CompactPageWriter compactPageWriter;
+    private final MemberSearchEtag searchEtag;
+    private final MemberSearchProperties searchProperties;
+    private final SpringDataWebProperties dataWebProperties;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return memberJpaRepository.searchCached(condition);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
+    // v2 와 같은 조회, count 방식을 고를 수 있음 (CountStrategy)
+    // EXACT 가 아니면 totalElements 가 없거나 추정값일 수 있어서 Page 가 아닌 Slice 로 응답
+    @GetMapping("/v2/members/slice")
+    public Slice<MemberTeamDto> searchMemberV2Slice(
+        MemberSearchCondition condition,
+        Pageable pageable,
+        @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+        WebRequest request
+    ) {
+        if (notModified(request)) {
+            return null;
+        }
+        if (countStrategy == CountStrategy.EXACT) {
+            return memberRepository.searchPageSimple(condition, pageable);
+        }
+        return memberRepository.searchPage(condition, pageable, countStrategy);
+    }
+
+    // v2/members/slice 와 같은 조회를 간단한 json 으로 (CompactPageWriter), columnar=true 면 필드별 배열로 내려줌
+    @GetMapping("/v2/members/compact")
+    public ResponseEntity<StreamingResponseBody> searchMemberV2Compact(
+        MemberSearchCondition condition,
+        Pageable pageable,
+        @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+        @RequestParam(defaultValue = "false") boolean columnar,
+        WebRequest request
+    ) {
+        Slice<MemberTeamDto> page = searchMemberV2Slice(condition, pageable, countStrategy, request);
+        if (page == null) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> compactPageWriter.write(page, columnar, out));
+    }
+
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(
+        MemberSearchCondition condition,
+        Pageable pageable,
+        @RequestParam(defaultValue = "false") boolean parallel,
+        WebRequest request
+    ) {
+        if (notModified(request)) {
+            return null;
+        }
+        if (parallel) {
+            return memberRepository.searchPageParallel(condition, pageable);
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
+    // 다음 페이지는 응답의 마지막 memberId 를 lastMemberId 로 넘겨서 조회
+    // size 는 Pageable 을 받는 api 와 같은 규칙 (spring.data.web.pageable.*)
+    // 없거나 1 보다 작으면 default-page-size, max-page-size 보다 크면 max-page-size
+    @GetMapping("/v4/members")
+    public Slice<MemberTeamDto> searchMemberV4(
+        MemberSearchCondition condition,
+        @RequestParam(required = false) Long lastMemberId,
+        @RequestParam(required = false) Integer size,
+        WebRequest request
+    ) {
+        if (notModified(request)) {
+            return null;
+        }
+        return memberRepository.searchSlice(condition, lastMemberId, pageSize(size));
+    }
+
+    // 한 줄에 한 건씩 (NDJSON) 읽는 대로 바로 내려보냄
+    // 전체 결과를 List 로 만들지 않으므로 결과 크기와 상관없이 메모리 사용량이 일정함
+    // 대신 다 내려보낼 때까지 (클라이언트가 느리면 그만큼) 읽기 트랜잭션과 커넥션을 잡고 있음
+    // 그래서 트랜잭션 timeout (member.search.export-timeout) 을 걸고, 각 SQL 에도 남은 시간이 statement timeout 으로 적용됨
+    @GetMapping(value = "/v1/members/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setTimeout((int) searchProperties.getExportTimeout().getSeconds());
+        // row 마다 flush 하지 않고 버퍼가 찰 때 내보냄
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("\n");
+
+        StreamingResponseBody body = out -> readOnly.executeWithoutResult(status -> {
+            try (Stream<MemberTeamDto> rows = memberRepository.searchStream(condition);
+                 SequenceWriter sequence = writer.writeValues(out)) {
+                Iterator<MemberTeamDto> iterator = rows.iterator();
+                boolean written = false;
+                while (iterator.hasNext()) {
+                    sequence.write(iterator.next());
+                    written = true;
+                }
+                sequence.flush();
+                // 구분자는 row 사이에만 들어가므로 마지막 row 뒤에 줄바꿈 (결과가 없으면 빈 body)
+                if (written) {
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    private int pageSize(Integer size) {
+        SpringDataWebProperties.Pageable pageable = dataWebProperties.getPageable();
+        if (size == null || size < 1) {
+            return pageable.getDefaultPageSize();
+        }
+        return Math.min(size, pageable.getMaxPageSize());
+    }
+
+    // ETag 가 같으면 조회 없이 304 (MemberSearchEtag)
+    private boolean notModified(WebRequest request) {
+        return searchEtag.notModified(request);
+    }
 }
@@ -0,0 +1,25 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.domain.event.DataVersion;
+
+// 회원 조회 api 의 ETag / 304 (MemberController, AsyncMemberController 가 같이 사용)
+// 조회 결과는 Member, Team 데이터가 바뀌어야만 달라지므로 DataVersion 으로 ETag 를 만듦
+// 클라이언트가 가진 값과 같으면 조회 없이 304 응답 (true 를 반환하면 handler 는 body 없이 null 을 반환하면 됨)
+// 버전을 조회 전에 읽으므로 조회 중에 데이터가 바뀌면 다음 요청은 다시 조회하게 된다.
+// Last-Modified 는 초 단위라 같은 초 안의 변경을 구분하지 못해 보내지 않음 (If-Modified-Since 만 보내는 클라이언트는 항상 200)
+// DataVersion 은 서버마다 따로 세므로 여러 대로 띄우면 member.search.etag-enabled=false 로 끔
+@Component
+@RequiredArgsConstructor
+public class MemberSearchEtag {
+    private final DataVersion dataVersion;
+    private final MemberSearchProperties searchProperties;
+
+    // 비동기 api 도 조회를 넘기기 전 요청 스레드에서 호출 (ETag 헤더는 그때 응답에 들어감)
+    public boolean notModified(WebRequest request) {
+        return searchProperties.isEtagEnabled() && request.checkNotModified(dataVersion.etag());
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.domain.service.TeamStatistics;
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/teams")
+public class TeamController {
+    private final TeamStatistics teamStatistics;
+
+    // 메모리에 유지중인 통계를 그대로 반환 (DB 조회 없음)
+    @GetMapping("/stats")
+    public List<TeamStatsDto> stats() {
+        return teamStatistics.findAll();
+    }
+}
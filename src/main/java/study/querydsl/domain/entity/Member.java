@@ -6,24 +6,49 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
+// Team.members 컬렉션 캐시는 회원 id 만 가지고 있으므로 회원도 캐시해야 컬렉션 로딩시 회원을 하나씩 조회하지 않음
+// 검색 조건(usernameEq, teamNameEq + ageGoe/ageLoe) 용 인덱스
+// idx_member_team_age 는 username 까지 포함해서 팀/나이 조건 검색시 테이블을 보지 않고 인덱스만으로 조회 (covering index)
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_member_username", columnList = "username"),
+    @Index(name = "idx_member_team_age", columnList = "team_id, age, username")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = Member.WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
 @Setter
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @EqualsAndHashCode(of = {"id", "username", "age"})
 @ToString(of = {"id", "username", "age"})
 public class Member {
+    // 회원 조회시 팀까지 한번에 조회 (CustomQueryDslRepositorySupport.withEntityGraph)
+    public static final String WITH_TEAM = "Member.withTeam";
+
+    // 대량 insert 시 sequence 호출을 줄이기 위해 allocationSize 만큼 미리 할당 (pooled)
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -34,6 +59,11 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    // 낙관적 락: 다른 트랜잭션이 먼저 수정했으면 update 가 실패함 (OptimisticRetryExecutor 로 재시도)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -51,8 +81,13 @@ public class Member {
         }
     }
 
-    private void changeTeam(Team team) {
+    public void changeTeam(Team team) {
+        if (this.team != null) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        this.team.addMember(this);
+        if (team != null) {
+            team.addMember(this);
+        }
     }
 }
@@ -6,17 +6,30 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -24,15 +37,26 @@ import java.util.Set;
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    // 대량 insert 시 sequence 호출을 줄이기 위해 allocationSize 만큼 미리 할당 (pooled)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    // 회원이 팀에 들어오고 나가는건 팀 자체의 변경이 아니므로 팀 version 을 올리지 않음
+    // (올리면 같은 팀으로 이동하는 회원들끼리 팀 row 에서 충돌함)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "team")
+    @OptimisticLock(excluded = true)
     private Set<Member> members;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     public Team(String name) {
         this.name = name;
     }
@@ -42,10 +66,21 @@ public class Team {
         this.members = members;
     }
 
+    // 아직 로딩되지 않은 컬렉션은 건드리지 않음 (add 하면 팀의 회원 전체를 조회함)
+    // 연관관계 주인은 Member.team 이므로 DB 에는 그대로 반영되고, 컬렉션은 나중에 로딩될 때 DB 값으로 채워짐
+    // 2차 캐시에 있는 컬렉션은 hibernate.cache.auto_evict_collection_cache 로 지워지므로 다음 로딩시 DB 값을 읽음
     public void addMember(Member member) {
         if (Objects.isNull(members)) {
             members = new HashSet<>();
         }
-        members.add(member);
+        if (Hibernate.isInitialized(members)) {
+            members.add(member);
+        }
+    }
+
+    public void removeMember(Member member) {
+        if (Objects.nonNull(members) && Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
     }
 }
@@ -0,0 +1,36 @@
+package study.querydsl.domain.event;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Member, Team 데이터가 바뀔 때마다 올라가는 버전 (generation counter)
+// 캐시 키에 넣어두면 데이터가 바뀐 뒤에는 이전 캐시를 쓰지 않게 된다.
+// 메모리에만 있으므로 서버(인스턴스) 별 값이고, 재시작하면 다시 0 부터 시작함
+// 이 서버의 엔티티 이벤트(EntityChangedEvent) 로만 올라가므로 다른 서버의 커밋, native SQL, bulkExecute 밖의 jpql bulk 는 모름
+// -> 서버 한 대 기준. 여러 대면 ETag 는 끄고 (member.search.etag-enabled=false) 캐시는 TTL 에 맡김
+@Component
+public class DataVersion {
+    // 재시작 후에 이전 ETag 와 겹치지 않도록 ETag 에 같이 넣음
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong generation = new AtomicLong();
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            generation.incrementAndGet();
+        }
+    }
+
+    public long current() {
+        return generation.get();
+    }
+
+    // 조회 api 응답의 ETag (gzip 등으로 body 가 바뀌어도 쓸 수 있게 weak)
+    public String etag() {
+        return "W/\"" + Long.toHexString(epoch) + "-" + current() + "\"";
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.domain.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.querydsl.enums.EntityChangeType;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+// hibernate 커밋 이후 이벤트를 spring 이벤트(EntityChangedEvent)로 다시 발행
+// 캐시 무효화 처럼 커밋된 변경만 알아야 하는 곳에서 @EventListener 로 받아서 사용
+// 변경을 flush 하는 트랜잭션은 커밋이 끝날 때까지 InFlightCommits 에 등록
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEventPublisher
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener,
+    PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InFlightCommits inFlightCommits;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.PRE_UPDATE, this);
+        registry.appendListeners(EventType.PRE_DELETE, this);
+    }
+
+    // false 를 돌려줘야 변경이 취소되지 않음
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        inFlightCommits.track();
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        inFlightCommits.track();
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        inFlightCommits.track();
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(EntityChangeType.INSERT, event.getPersister(), event.getEntity(), null);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(EntityChangeType.UPDATE, event.getPersister(), event.getEntity(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(EntityChangeType.DELETE, event.getPersister(), event.getEntity(), event.getDeletedState());
+    }
+
+    // 롤백된 변경은 알릴 필요 없음
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    // hibernate 5.6 까지는 abstract 라서 구현해야 함 (오타 이름, deprecated)
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void publish(EntityChangeType type, EntityPersister persister, Object entity, Object[] oldState) {
+        eventPublisher.publishEvent(new EntityChangedEvent(
+            type, persister.getMappedClass(), entity, persister.getPropertyNames(), oldState
+        ));
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.domain.event;
+
+import lombok.Getter;
+import study.querydsl.enums.EntityChangeType;
+
+// 커밋된 엔티티 변경 이벤트
+// UPDATE, DELETE 는 변경 전 값(oldState)을 같이 전달한다. (없을 수도 있음)
+@Getter
+public class EntityChangedEvent {
+    private final EntityChangeType type;
+    private final Class<?> entityType;
+    private final Object entity;
+    private final String[] propertyNames;
+    private final Object[] oldState;
+
+    public EntityChangedEvent(EntityChangeType type, Class<?> entityType, Object entity,
+                              String[] propertyNames, Object[] oldState) {
+        this.type = type;
+        this.entityType = entityType;
+        this.entity = entity;
+        this.propertyNames = propertyNames;
+        this.oldState = oldState;
+    }
+
+    public static EntityChangedEvent bulk(Class<?> entityType) {
+        return new EntityChangedEvent(EntityChangeType.BULK, entityType, null, null, null);
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.equals(entityType);
+    }
+
+    public boolean hasOldState() {
+        return oldState != null && propertyNames != null;
+    }
+
+    public Object getOldValue(String propertyName) {
+        if (!hasOldState()) {
+            return null;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(propertyName)) {
+                return oldState[i];
+            }
+        }
+        return null;
+    }
+}
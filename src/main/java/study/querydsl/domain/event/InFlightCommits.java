@@ -0,0 +1,76 @@
+package study.querydsl.domain.event;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.TreeSet;
+
+// 엔티티를 변경하고 아직 끝나지 않은 트랜잭션 (처음 flush 한 때부터 afterCompletion 까지)
+// 커밋 후 이벤트(EntityChangedEvent) 는 afterCompletion 전에 발행되므로
+// awaitBefore(watermark()) 가 true 면 그 전에 flush 한 트랜잭션의 이벤트는 모두 받은 것
+// DB 스냅샷을 읽은 뒤에 기다리면 스냅샷에 보이는 커밋의 이벤트를 모두 받은 상태가 됨 (TeamStatistics)
+@Component
+public class InFlightCommits {
+    // 아래는 모두 this 로 동기화
+    private long next;
+    private final TreeSet<Long> active = new TreeSet<>();
+
+    // 엔티티 변경이 flush 될 때 호출 (EntityChangeEventPublisher), 트랜잭션 당 한번만 등록
+    // spring 트랜잭션 밖의 변경은 알 수 없음 (drift 검증으로 맞춤)
+    public void track() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Tracking) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new Tracking(begin()));
+    }
+
+    public synchronized long watermark() {
+        return next;
+    }
+
+    // watermark 전에 시작한 트랜잭션이 모두 끝날 때까지 기다림 (timeout 이 지나면 false)
+    public synchronized boolean awaitBefore(long watermark, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!active.isEmpty() && active.first() < watermark) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            Duration wait = Duration.ofNanos(remaining);
+            wait(Math.max(1, wait.toMillis()));
+        }
+        return true;
+    }
+
+    private synchronized long begin() {
+        long ticket = next++;
+        active.add(ticket);
+        return ticket;
+    }
+
+    private synchronized void end(long ticket) {
+        active.remove(ticket);
+        notifyAll();
+    }
+
+    // 커밋 중에 등록되어도 (커밋할 때 flush) afterCompletion 은 호출됨
+    private class Tracking implements TransactionSynchronization {
+        private final long ticket;
+
+        private Tracking(long ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            end(ticket);
+        }
+    }
+}
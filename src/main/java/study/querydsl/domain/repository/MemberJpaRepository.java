@@ -1,11 +1,14 @@
 package study.querydsl.domain.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.repository.cache.MemberSearchCache;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.domain.repository.common.QueryCacheHints;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -26,6 +29,9 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchCache searchCache;
+    private final QueryCacheHints queryCacheHints;
+    private final MemberConditionCompiler conditionCompiler;
 
     // em에서 에러나는거는 인텔리제이가 인식 못하는거라 실행해서 문제 없으면 그냥 진행하면 됨
 //    public MemberJpaRepository(EntityManager em) {
@@ -61,8 +67,9 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByUserName_QueryDsl(String username) {
-        return queryFactory.selectFrom(member)
-            .where(usernameEq(username))
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return conditionCompiler.where(queryFactory.selectFrom(member), condition)
             .fetch();
     }
 
@@ -101,41 +108,14 @@ public class MemberJpaRepository {
             .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-            .select(
-                new QMemberTeamDto(
-                    member.id.as("memberId"),
-                    member.username,
-                    member.age,
-                    team.id.as("teamId"),
-                    team.name.as("teamName")
-                )
-            )
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .fetch();
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+        return queryCacheHints.apply(conditionCompiler.contentQuery(condition)).fetch();
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    // 같은 조건의 반복 조회는 캐시된 결과를 사용 (MemberSearchCache)
+    // 트랜잭션은 캐시가 miss 일 때만 시작함 (this.search 는 프록시를 거치지 않으므로 @Transactional 없음)
+    public List<MemberTeamDto> searchCached(MemberSearchCondition condition) {
+        return searchCache.get(condition, this::search);
     }
 }
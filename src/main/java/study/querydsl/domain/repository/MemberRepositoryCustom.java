@@ -2,13 +2,42 @@ package study.querydsl.domain.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.domain.entity.Member;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.enums.CountStrategy;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    // 컨텐츠와 count 쿼리를 서로 다른 커넥션에서 동시에 실행
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+    // count 쿼리 처리 방식을 선택 (NONE 이면 Page 가 아닌 Slice)
+    Slice<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy);
+    // offset 없이 lastMemberId 이후부터 조회 (keyset pagination)
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId, int size);
+    // 결과를 한번에 메모리에 올리지 않고 한 row 씩 읽음
+    // 트랜잭션 안에서 호출하고 다 쓰면 close 해야 함 (try-with-resources)
+    Stream<MemberTeamDto> searchStream(MemberSearchCondition condition);
+    // 결과 전체를 DTO 대신 컬럼별 primitive 배열로 조회 (대량 조회, 집계용)
+    // 기존 List<MemberTeamDto> 가 필요하면 MemberTeamColumns.asDtoList()
+    MemberTeamColumns searchColumns(MemberSearchCondition condition);
+
+    // id 목록으로 한번에 조회 (요청한 id 순서, 없는 id 는 빠지고 중복 id 는 한번만)
+    // 영속성 컨텍스트나 2차 캐시에 있는 회원은 그대로 쓰고 나머지만 in 절로 나눠서 조회
+    List<Member> findAllByIds(Collection<Long> ids);
+    List<MemberTeamDto> findMemberTeamDtosByIds(Collection<Long> ids);
+
+    // 조건에 맞는 회원을 update/delete 쿼리로 한번에 변경 (엔티티를 조회하지 않음)
+    // 실행 후 영속성 컨텍스트를 비우므로 이전에 조회한 엔티티는 다시 조회해서 사용해야 함
+    long bulkAddAge(MemberSearchCondition condition, int amount);
+    long bulkChangeTeam(MemberSearchCondition condition, Long teamId);
+    long bulkDelete(MemberSearchCondition condition);
 }
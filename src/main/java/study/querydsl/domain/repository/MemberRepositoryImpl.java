@@ -5,21 +5,61 @@ import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.concurrent.DbTaskExecutor;
+import study.querydsl.config.MemberSearchProperties;
 import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.event.EntityChangedEvent;
+import study.querydsl.domain.repository.cache.MemberCountCache;
+import study.querydsl.domain.repository.cache.TeamNameDictionary;
+import study.querydsl.domain.repository.common.MemberColumnarReader;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.domain.repository.common.MemberConditionCompiler.Resolved;
+import study.querydsl.domain.repository.common.QueryCacheHints;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.common.EstimatedPage;
+import study.querydsl.enums.CountStrategy;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.domain.entity.QMember.member;
-import static study.querydsl.domain.entity.QTeam.team;
 
 @RequiredArgsConstructor
 //public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
@@ -31,9 +71,23 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //        super(Member.class);
 //    }
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchProperties properties;
+    private final QueryCacheHints queryCacheHints;
+    private final MemberConditionCompiler conditionCompiler;
+    private final MemberColumnarReader columnarReader;
+    private final TeamNameDictionary teamNames;
+    private final DbTaskExecutor dbTaskExecutor;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
 
+    // 조회는 읽기 전용 트랜잭션으로 실행
+    // hibernate 세션이 FlushMode.MANUAL, 기본 read-only 로 열려서 flush 와 스냅샷(dirty checking) 비용이 없고
+    // spring.datasource.replica.url 이 있으면 replica 로 조회한다. (ReadOnlyRoutingDataSource)
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
 //        return from(member).leftJoin(member.team, team)
 //            .where(usernameEq(condition.getUsername()),
@@ -50,28 +104,11 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //                )
 //            )
 //            .fetch();
-        return queryFactory
-            .select(
-                new QMemberTeamDto(
-                    member.id.as("memberId"),
-                    member.username,
-                    member.age,
-                    team.id.as("teamId"),
-                    team.name.as("teamName")
-                )
-            )
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
-            .fetch();
+        return queryCacheHints.apply(contentQuery(condition)).fetch();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
 //        JPQLQuery<MemberTeamDto> jpaQuery = from(member).leftJoin(member.team, team)
 //            .where(usernameEq(condition.getUsername()),
@@ -94,29 +131,13 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //            .applyPagination(pageable, jpaQuery)
 //            .fetch();
 //        return query.fetch();
-        final JPAQuery query = queryFactory
-            .select(
-                new QMemberTeamDto(
-                    member.id.as("memberId"),
-                    member.username,
-                    member.age,
-                    team.id.as("teamId"),
-                    team.name.as("teamName")
-                )
-            )
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+        Resolved resolved = conditionCompiler.resolve(condition);
+        final JPAQuery<MemberTeamDto> query = contentQuery(resolved)
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize());
 //
-        JPAQuery<Long> countQuery = total(condition);
-        List<MemberTeamDto> results = query.fetch();
+        JPAQuery<Long> countQuery = total(resolved);
+        List<MemberTeamDto> results = queryCacheHints.apply(query).fetch();
 //
 //        // 페이지 사이즈보다 컨텐츠 사이즈보다 크면 count query 실행을 하지 않음
         return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchOne);
@@ -125,30 +146,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        final JPAQuery query = queryFactory
-            .select(
-                new QMemberTeamDto(
-                    member.id.as("memberId"),
-                    member.username,
-                    member.age,
-                    team.id.as("teamId"),
-                    team.name.as("teamName")
-                )
-            )
-            .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+        Resolved resolved = conditionCompiler.resolve(condition);
+        final JPAQuery<MemberTeamDto> query = contentQuery(resolved)
             .offset(pageable.getOffset())
             .limit(pageable.getPageSize());
 
-        JPAQuery<Long> countQuery = total(condition);
-        List<MemberTeamDto> results = query.fetch();
+        JPAQuery<Long> countQuery = total(resolved);
+        List<MemberTeamDto> results = queryCacheHints.apply(query).fetch();
 
         // 페이지 사이즈보다 컨텐츠 사이즈보다 크면 count query 실행을 하지 않음
         return PageableExecutionUtils.getPage(results, pageable, countQuery::fetchOne);
@@ -156,29 +162,370 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //        return null;
     }
 
-    private JPAQuery<Long> total(MemberSearchCondition condition) {
-        return queryFactory.select(member.count()).from(member).where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        );
-//        return null;
+    // 컨텐츠는 자기 트랜잭션에서 조회하고 커넥션을 반납한 뒤에 count 를 기다림
+    // 커넥션을 잡은 채로 다른 커넥션을 쓰는 count 를 기다리면 풀이 꽉 찼을 때 서로 기다리다 멈출 수 있음
+    @Override
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        // 이미 트랜잭션 안이면 (읽기 전용 포함) 커넥션을 잡은 채로 기다리게 되므로 순서대로 실행
+        // 쓰기 트랜잭션이면 다른 커넥션에서 아직 커밋되지 않은 데이터도 안 보임
+        // executor 작업 안에서 호출되면 (ex. async api) count 를 같은 executor 에 넣고 기다리다 풀이 꽉 차면 멈추므로 순서대로 실행
+        if (TransactionSynchronizationManager.isActualTransactionActive() || dbTaskExecutor.isInTask()) {
+            return readOnlyTransaction().execute(status -> searchPageComplex(condition, pageable));
+        }
+
+        // count 는 별도 스레드에서 새 읽기 전용 트랜잭션(새 EntityManager, 커넥션)으로 먼저 시작하고
+        // 컨텐츠는 지금 스레드에서 조회
+        // 컨텐츠와 count 가 같은 회원 id 후보로 조회하도록 한번만 resolve
+        // countPending 을 먼저 false 로 바꾼 쪽만 count 를 실행 (count 작업 또는 지금 스레드, 두번 세지 않음)
+        Resolved resolved = conditionCompiler.resolve(condition);
+        AtomicBoolean countPending = new AtomicBoolean(true);
+        CompletableFuture<Long> countFuture = submitCount(resolved, countPending);
+
+        List<MemberTeamDto> results;
+        try {
+            results = readOnlyTransaction().execute(status -> queryCacheHints.apply(contentQuery(resolved))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch());
+        } catch (RuntimeException | Error e) {
+            cancelCount(countFuture, countPending);
+            throw e;
+        }
+
+        if (countFuture == null) {
+            return PageableExecutionUtils.getPage(results, pageable, () -> countInTransaction(resolved));
+        }
+        // 마지막 페이지라 count 가 필요 없으면 아직 시작하지 않은 count 는 실행하지 않음
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(results, pageable,
+            () -> awaitCount(countFuture, countPending, resolved));
+        cancelCount(countFuture, countPending);
+        return page;
+    }
+
+    // parallelCountTimeout 안에 끝나지 않으면
+    // - count 작업이 아직 시작하지 않았으면 (executor 가 밀림 등) 작업을 취소하고 지금 스레드에서 직접 센다
+    // - 이미 시작했으면 끝날 때까지 기다림 (같은 count 를 또 실행하지 않음)
+    // count 가 실패하면 CompletableFuture 가 감싼 예외가 아닌 원래 예외를 던짐
+    private long awaitCount(CompletableFuture<Long> countFuture, AtomicBoolean countPending, Resolved resolved) {
+        try {
+            try {
+                return countFuture.get(properties.getParallelCountTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (cancelCount(countFuture, countPending)) {
+                    return countInTransaction(resolved);
+                }
+                return countFuture.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the count query", e);
+        }
+    }
+
+    // count 작업이 아직 count 쿼리를 시작하지 않았으면 취소 (true), 이미 시작했거나 끝났으면 false
+    private boolean cancelCount(CompletableFuture<Long> countFuture, AtomicBoolean countPending) {
+        if (countFuture == null || !countPending.compareAndSet(true, false)) {
+            return false;
+        }
+        countFuture.cancel(false);
+        return true;
+    }
+
+    private CompletableFuture<Long> submitCount(Resolved resolved, AtomicBoolean countPending) {
+        TransactionTemplate readOnly = readOnlyTransaction();
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return dbTaskExecutor.submit(() -> countPending.get()
+                ? readOnly.execute(status -> countPending.compareAndSet(true, false) ? total(resolved).fetchOne() : null)
+                : null);
+        } catch (RejectedExecutionException e) {
+            // executor 가 꽉 차면 기존처럼 순서대로 실행
+            return null;
+        }
+    }
+
+    private long countInTransaction(Resolved resolved) {
+        return readOnlyTransaction().execute(status -> total(resolved).fetchOne());
+    }
+
+    // @Transactional(readOnly = true) 와 같음 (이미 트랜잭션이 있으면 참여)
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1. size=" + size);
+        }
+        // offset 을 쓰면 앞 페이지의 row 를 전부 읽고 버리기 때문에 페이지가 깊어질수록 느려짐
+        // member.id 인덱스로 바로 찾아가도록 마지막으로 조회한 id 이후부터 조회한다.
+        JPAQuery<MemberTeamDto> query = contentQuery(condition)
+            .where(memberIdGt(lastMemberId))
+            .orderBy(member.id.asc())
+            .limit(size + 1L);
+        List<MemberTeamDto> results = queryCacheHints.apply(query).fetch();
+
+        // size + 1 개를 조회해서 다음 페이지 여부를 판단 (count 쿼리 필요 없음)
+        boolean hasNext = results.size() > size;
+        if (hasNext) {
+            results.remove(size);
+        }
+        return new SliceImpl<>(results, PageRequest.of(0, size), hasNext);
+    }
+
+    // CACHED 는 컨텐츠 조회 트랜잭션이 끝난 뒤 (커넥션을 반납한 뒤) count 캐시를 확인
+    // miss 를 트랜잭션 안에서 채우면 커넥션을 잡은 채로 하나 더 빌리게 됨 (MemberCountCache)
+    @Override
+    public Slice<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy != CountStrategy.CACHED) {
+            return readOnlyTransaction().execute(status -> searchPageInTransaction(condition, pageable, countStrategy));
+        }
+        Resolved resolved = conditionCompiler.resolve(condition);
+        List<MemberTeamDto> results = readOnlyTransaction().execute(status -> queryCacheHints.apply(contentQuery(resolved))
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch());
+        return PageableExecutionUtils.getPage(results, pageable,
+            () -> countCache.get(condition, () -> total(resolved).fetchOne()));
+    }
+
+    private Slice<MemberTeamDto> searchPageInTransaction(MemberSearchCondition condition, Pageable pageable,
+                                                         CountStrategy countStrategy) {
+        Resolved resolved = conditionCompiler.resolve(condition);
+        if (countStrategy == CountStrategy.NONE) {
+            // size + 1 개를 조회해서 다음 페이지 여부만 판단
+            List<MemberTeamDto> results = queryCacheHints.apply(contentQuery(resolved))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+            boolean hasNext = results.size() > pageable.getPageSize();
+            if (hasNext) {
+                results.remove(pageable.getPageSize());
+            }
+            return new SliceImpl<>(results, pageable, hasNext);
+        }
+
+        List<MemberTeamDto> results = queryCacheHints.apply(contentQuery(resolved))
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        if (countStrategy == CountStrategy.ESTIMATED) {
+            return estimatedPage(results, pageable, resolved);
+        }
+        return PageableExecutionUtils.getPage(results, pageable, total(resolved)::fetchOne);
+    }
+
+    @Override
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition) {
+        // DTO 조회라 영속성 컨텍스트에 쌓이는건 없고, fetch size 만큼씩 커서로 읽어온다.
+        return contentQuery(condition)
+            .setHint(QueryHints.HINT_FETCH_SIZE, properties.getStreamFetchSize())
+            .setHint(QueryHints.HINT_READONLY, true)
+            .stream();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MemberTeamColumns searchColumns(MemberSearchCondition condition) {
+        return columnarReader.read(condition);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return findByIds(ids, Function.identity(),
+            chunk -> queryFactory.selectFrom(member).where(member.id.in(chunk)).fetch(),
+            Member::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> findMemberTeamDtosByIds(Collection<Long> ids) {
+        return findByIds(ids, this::toMemberTeamDto,
+            chunk -> contentQuery(new MemberSearchCondition()).where(member.id.in(chunk)).fetch(),
+            MemberTeamDto::getMemberId);
+    }
+
+    @Override
+    @Transactional
+    public long bulkAddAge(MemberSearchCondition condition, int amount) {
+        return bulkExecute(condition, ids -> queryFactory
+            .update(member)
+            .set(member.age, member.age.add(amount))
+            .set(member.version, member.version.add(1L))
+            .where(member.id.in(ids))
+            .execute());
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    @Override
+    @Transactional
+    public long bulkChangeTeam(MemberSearchCondition condition, Long teamId) {
+        Team newTeam = em.getReference(Team.class, teamId);
+        return bulkExecute(condition, ids -> queryFactory
+            .update(member)
+            .set(member.team, newTeam)
+            .set(member.version, member.version.add(1L))
+            .where(member.id.in(ids))
+            .execute());
+    }
+
+    @Override
+    @Transactional
+    public long bulkDelete(MemberSearchCondition condition) {
+        return bulkExecute(condition, ids -> queryFactory
+            .delete(member)
+            .where(member.id.in(ids))
+            .execute());
+    }
+
+    // update 는 version 도 같이 올려서 이미 엔티티를 읽어간 다른 트랜잭션의 수정이 덮어쓰지 않도록 함 (낙관적 락)
+    // 대상 id 를 member.id 순서로 bulkChunkSize 개씩 잘라서 (keyset) 한 묶음당 update/delete 한번 실행
+    // id 로 잘라서 처리하므로 나이 변경처럼 조건에 영향을 주는 변경도 한 회원에 한번만 적용된다.
+    private long bulkExecute(MemberSearchCondition condition, ToLongFunction<List<Long>> action) {
+        // bulk 쿼리는 영속성 컨텍스트를 거치지 않으므로 쌓인 변경을 먼저 반영
+        em.flush();
+
+        Resolved resolved = conditionCompiler.resolve(condition);
+        int chunkSize = properties.getBulkChunkSize();
+        long affected = 0;
+        Long lastId = null;
+        while (true) {
+            List<Long> ids = countBase(resolved)
+                .select(member.id)
+                .where(memberIdGt(lastId))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+            if (ids.isEmpty()) {
+                break;
+            }
+            affected += action.applyAsLong(ids);
+            lastId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        // 이미 조회한 엔티티가 DB 와 달라졌으므로 영속성 컨텍스트를 비움
+        em.clear();
+        publishBulkChangeAfterCommit();
+        return affected;
+    }
+
+    // bulk 쿼리는 엔티티 이벤트가 발생하지 않으므로 커밋 후 직접 알려줌 (캐시 무효화 등)
+    private void publishBulkChangeAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(EntityChangedEvent.bulk(Member.class));
+            }
+        });
+    }
+
+    // 영속성 컨텍스트, 2차 캐시에 있는 회원은 em.find (SQL 없음), 나머지는 idLookupChunkSize 씩 in 절로 조회
+    // 마지막 chunk 는 in_clause_parameter_padding 으로 2의 거듭제곱 크기로 채워지므로 SQL 모양은 몇 개 뿐
+    private <T> List<T> findByIds(Collection<Long> ids, Function<Member, T> fromEntity,
+                                  Function<List<Long>, List<T>> query, Function<T, Long> idOf) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        Cache secondLevelCache = em.getEntityManagerFactory().getCache();
+
+        Map<Long, T> found = new HashMap<>(requested.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            if (session.getPersistenceContextInternal().containsEntity(session.generateEntityKey(id, persister))
+                || secondLevelCache.contains(Member.class, id)) {
+                Member cached = em.find(Member.class, id);
+                if (cached != null) {
+                    found.put(id, fromEntity.apply(cached));
+                }
+            } else {
+                missing.add(id);
+            }
+        }
+
+        int chunkSize = properties.getIdLookupChunkSize();
+        for (int from = 0; from < missing.size(); from += chunkSize) {
+            for (T row : query.apply(missing.subList(from, Math.min(from + chunkSize, missing.size())))) {
+                found.put(idOf.apply(row), row);
+            }
+        }
+
+        List<T> results = new ArrayList<>(found.size());
+        for (Long id : requested) {
+            T row = found.get(id);
+            if (row != null) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    // 팀은 프록시여도 2차 캐시에 있으면 SQL 없이 초기화됨
+    private MemberTeamDto toMemberTeamDto(Member findMember) {
+        Team findTeam = findMember.getTeam();
+        if (findTeam == null) {
+            return new MemberTeamDto(findMember.getId(), findMember.getUsername(), findMember.getAge(), null, null);
+        }
+        return new MemberTeamDto(findMember.getId(), findMember.getUsername(), findMember.getAge(),
+            findTeam.getId(), teamNames.canonical(findTeam.getId(), findTeam.getName()));
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return conditionCompiler.contentQuery(condition);
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(Resolved resolved) {
+        return conditionCompiler.contentQuery(resolved);
+    }
+
+    private Page<MemberTeamDto> estimatedPage(List<MemberTeamDto> results, Pageable pageable, Resolved resolved) {
+        // 마지막 페이지면 count 쿼리 없이 total 을 알 수 있음 (PageableExecutionUtils 와 같은 규칙)
+        if (results.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !results.isEmpty())) {
+            return new EstimatedPage<>(results, pageable, pageable.getOffset() + results.size(), false);
+        }
+
+        // 현재 페이지보다 상한이 작으면 안되므로 현재 페이지 끝까지는 센다
+        long limit = Math.max(properties.getEstimatedCountLimit(), pageable.getOffset() + pageable.getPageSize());
+        // limit 번째 이후에 row 가 하나라도 있는지만 확인 (id 를 limit 개 가져오지 않음)
+        Long overLimit = countBase(resolved)
+            .select(member.id)
+            .offset(limit)
+            .limit(1)
+            .fetchFirst();
+        if (overLimit != null) {
+            return new EstimatedPage<>(results, pageable, limit, true);
+        }
+        // 상한 이하면 정확히 센다
+        return new EstimatedPage<>(results, pageable, total(resolved).fetchOne(), false);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private JPAQuery<Long> total(Resolved resolved) {
+        return queryCacheHints.apply(countBase(resolved).select(member.count()));
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    private JPAQuery<?> countBase(Resolved resolved) {
+        return conditionCompiler.filterQuery(resolved);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
     }
 }
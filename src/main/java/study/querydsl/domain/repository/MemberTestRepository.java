@@ -1,7 +1,7 @@
 package study.querydsl.domain.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
@@ -9,20 +9,28 @@ import org.springframework.stereotype.Repository;
 import study.querydsl.domain.entity.Member;
 import study.querydsl.domain.entity.QTeam;
 import study.querydsl.domain.repository.common.CustomQueryDslRepositorySupport;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.domain.repository.common.MemberConditionCompiler.Resolved;
 import study.querydsl.dto.MemberSearchCondition;
 
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.domain.entity.QMember.member;
 import static study.querydsl.domain.entity.QTeam.team;
 
 @Repository
 public class MemberTestRepository extends CustomQueryDslRepositorySupport {
+    private MemberConditionCompiler conditionCompiler;
+
     public MemberTestRepository() {
         super(Member.class);
     }
 
+    @Autowired
+    public void setConditionCompiler(MemberConditionCompiler conditionCompiler) {
+        this.conditionCompiler = conditionCompiler;
+    }
+
     public List<Member> basicSelect() {
         return select(member)
             .from(member)
@@ -34,15 +42,15 @@ public class MemberTestRepository extends CustomQueryDslRepositorySupport {
             .fetch();
     }
 
+    // 팀까지 한번에 조회 (getTeam() 호출시 추가 쿼리 없음)
+    public List<Member> basicSelectWithTeam() {
+        return withEntityGraph(selectFrom(member), Member.WITH_TEAM)
+            .fetch();
+    }
+
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
-        JPAQuery<Member> memberQuery = selectFrom(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            );
+        JPAQuery<Member> memberQuery = conditionCompiler.where(selectFrom(member)
+            .leftJoin(member.team, team), condition);
 
         List<Member> content = getQuerydsl().applyPagination(pageable, memberQuery).fetch();
 
@@ -51,56 +59,34 @@ public class MemberTestRepository extends CustomQueryDslRepositorySupport {
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
-        Page<Member> result = applyPagination(pageable, query -> query
+        Page<Member> result = applyPagination(pageable, query -> conditionCompiler.where(query
             .selectFrom(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .leftJoin(member.team, team), condition)
         );
         return result;
     }
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
-        Page<Member> result = applyPagination(pageable, contentQuery -> contentQuery
+        // 컨텐츠와 count 가 같은 조건 (UsernameIndex 후보) 으로 조회되도록 한번만 resolve
+        Resolved resolved = conditionCompiler.resolve(condition);
+        Page<Member> result = applyPagination(pageable, contentQuery -> conditionCompiler.where(contentQuery
             .selectFrom(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            ), countQuery -> countQuery
+            .leftJoin(member.team, team), resolved), countQuery -> conditionCompiler.where(countQuery
             .select(member.id)
             .from(member)
-            .leftJoin(member.team, team)
-            .where(
-                usernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                ageGoe(condition.getAgeGoe()),
-                ageLoe(condition.getAgeLoe())
-            )
+            .leftJoin(member.team, team), resolved)
         );
         return result;
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    public Page<Member> applyPaginationWithTeam(MemberSearchCondition condition, Pageable pageable) {
+        Resolved resolved = conditionCompiler.resolve(condition);
+        return applyPagination(pageable, Member.WITH_TEAM, contentQuery -> conditionCompiler.where(contentQuery
+            .selectFrom(member)
+            .leftJoin(member.team, team), resolved), countQuery -> conditionCompiler.where(countQuery
+            .select(member.id)
+            .from(member)
+            .leftJoin(member.team, team), resolved)
+        );
     }
 }
-
@@ -0,0 +1,14 @@
+package study.querydsl.domain.repository;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydsl.domain.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+    // 팀은 거의 바뀌지 않으므로 팀 이름 조회는 쿼리 캐시 사용
+    @org.springframework.data.jpa.repository.QueryHints(@QueryHint(name = QueryHints.HINT_CACHEABLE, value = "true"))
+    Optional<Team> findByName(String name);
+}
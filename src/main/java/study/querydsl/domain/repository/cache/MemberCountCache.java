@@ -0,0 +1,63 @@
+package study.querydsl.domain.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.config.PrimaryReadTemplate;
+import study.querydsl.domain.event.DataVersion;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.function.Supplier;
+
+// 검색 조건 별 count 결과 캐시
+// 같은 조건이면 페이지가 바뀌어도 count 는 같으므로 TTL 동안은 재사용한다.
+// 키에 DataVersion 을 포함하므로 Member, Team 이 커밋되면 이전 count 는 더 이상 조회되지 않음 (MemberSearchCache 와 같음)
+@Component
+public class MemberCountCache {
+    private final Cache<Key, Long> cache;
+    private final DataVersion dataVersion;
+    private final PrimaryReadTemplate primaryReads;
+
+    public MemberCountCache(MemberSearchProperties properties, DataVersion dataVersion, PrimaryReadTemplate primaryReads) {
+        this.dataVersion = dataVersion;
+        this.primaryReads = primaryReads;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getCountCacheMaxSize())
+            .expireAfterWrite(properties.getCountCacheTtl())
+            .build();
+    }
+
+    public long get(MemberSearchCondition condition, Supplier<Long> countQuery) {
+        // 쓰기 트랜잭션 안에서는 커밋되지 않은(롤백될 수도 있는) 변경이 count 에 포함되므로 캐시를 쓰지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return countQuery.get();
+        }
+        // 조회 전에 버전을 읽어야 조회 중에 바뀐 데이터가 새 버전으로 캐시되지 않음
+        Key key = new Key(condition.normalize(), dataVersion.current());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 트랜잭션 밖이면 primary 에서 새 트랜잭션으로 조회해서 채움
+            return cache.get(key, k -> primaryReads.execute(countQuery));
+        }
+        // 읽기 전용 트랜잭션 안에서는 지금 커넥션으로 조회 (새 트랜잭션은 커넥션을 하나 더 빌리므로 miss 가 몰리면 풀이 바닥남)
+        // 지금 커넥션이 replica 면 늦은 값일 수 있으므로 캐시하지 않음
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long count = countQuery.get();
+        if (primaryReads.isCurrentTransactionOnPrimary()) {
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    @Value
+    private static class Key {
+        MemberSearchCondition condition;
+        long generation;
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.domain.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.config.PrimaryReadTemplate;
+import study.querydsl.domain.event.DataVersion;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// 검색 조건 별 검색 결과 캐시
+// 키에 DataVersion 을 포함하므로 Member, Team 이 커밋되면 이전 결과는 더 이상 조회되지 않고 TTL, 크기 제한으로 정리된다.
+// 조회수/미스/eviction 은 micrometer 의 cache.* 메트릭 (name=memberSearch) 으로 확인
+@Component
+public class MemberSearchCache {
+    private final Cache<Key, List<MemberTeamDto>> cache;
+    private final DataVersion dataVersion;
+    private final PrimaryReadTemplate primaryReads;
+
+    public MemberSearchCache(MemberSearchProperties properties, DataVersion dataVersion,
+                             PrimaryReadTemplate primaryReads, MeterRegistry meterRegistry) {
+        this.dataVersion = dataVersion;
+        this.primaryReads = primaryReads;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumWeight(properties.getResultCacheMaxRows())
+            .weigher((Key key, List<MemberTeamDto> value) -> value.size() + 1)
+            .expireAfterWrite(properties.getResultCacheTtl())
+            .recordStats()
+            .build(), "memberSearch");
+    }
+
+    // 반환되는 리스트는 여러 요청이 공유하므로 수정하면 안됨
+    // 캐시 hit 이면 트랜잭션(커넥션) 없이 돌려주고, miss 일 때만 primary 에서 새 읽기 전용 트랜잭션으로 조회 (PrimaryReadTemplate)
+    // 이미 트랜잭션 안이면 새 트랜잭션을 열지 않고 지금 트랜잭션에서 조회
+    public List<MemberTeamDto> get(MemberSearchCondition condition,
+                                   Function<MemberSearchCondition, List<MemberTeamDto>> search) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경이 보여야 하므로 캐시를 쓰지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return search.apply(condition);
+        }
+        // 조회 전에 버전을 읽어야 조회 중에 바뀐 데이터가 새 버전으로 캐시되지 않음
+        Key key = new Key(condition.normalize(), dataVersion.current());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return cache.get(key, k -> Collections.unmodifiableList(primaryReads.execute(() -> search.apply(k.getCondition()))));
+        }
+        // 읽기 전용 트랜잭션 안에서는 지금 커넥션으로 조회 (MemberCountCache 와 같음)
+        List<MemberTeamDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<MemberTeamDto> results = Collections.unmodifiableList(search.apply(key.getCondition()));
+        if (primaryReads.isCurrentTransactionOnPrimary()) {
+            cache.put(key, results);
+        }
+        return results;
+    }
+
+    @Value
+    private static class Key {
+        MemberSearchCondition condition;
+        long generation;
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.domain.repository.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.PrimaryReadTemplate;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.event.EntityChangedEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.domain.entity.QTeam.team;
+
+// 팀 id -> 팀 이름 사전
+// 조회 결과는 JDBC 에서 row 마다 새 String 으로 팀 이름을 읽어오는데, 팀 수는 몇 개 뿐이므로
+// 사전에 있는 String 으로 바꿔서 같은 팀의 row 가 하나의 String 을 공유하게 한다. (MemberConditionCompiler, MemberColumnarReader)
+// 시작할 때 전부 읽고 팀 변경 이벤트(커밋 후) 로 갱신, 사전에 없는 팀은 처음 조회된 이름을 넣는다.
+@Component
+public class TeamNameDictionary {
+    private final JPAQueryFactory queryFactory;
+    private final PrimaryReadTemplate primaryReads;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    public TeamNameDictionary(JPAQueryFactory queryFactory, PrimaryReadTemplate primaryReads) {
+        this.queryFactory = queryFactory;
+        // 커밋 후 이벤트에서 호출되어도 새 트랜잭션, replica 가 있어도 primary 에서 조회
+        this.primaryReads = primaryReads;
+    }
+
+    public String get(Long teamId) {
+        return teamId == null ? null : names.get(teamId);
+    }
+
+    // 사전의 이름과 같으면 사전의 String 을 돌려줌
+    // 다르면 (아직 이벤트가 오지 않은 변경, 커밋 전 변경을 같은 트랜잭션에서 조회) 조회한 값을 그대로 사용
+    public String canonical(Long teamId, String name) {
+        if (teamId == null || name == null) {
+            return name;
+        }
+        String canonical = names.putIfAbsent(teamId, name);
+        return canonical != null && canonical.equals(name) ? canonical : name;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Tuple> rows = primaryReads.execute(() -> queryFactory.select(team.id, team.name).from(team).fetch());
+        for (Tuple row : rows) {
+            put(row.get(team.id), row.get(team.name));
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isFor(Team.class)) {
+            return;
+        }
+        switch (event.getType()) {
+            case INSERT:
+            case UPDATE:
+                Team changed = (Team) event.getEntity();
+                put(changed.getId(), changed.getName());
+                return;
+            case DELETE:
+                names.remove(((Team) event.getEntity()).getId());
+                return;
+            default:
+                // bulk 변경은 어떤 팀이 바뀌었는지 알 수 없음
+                names.clear();
+                reload();
+        }
+    }
+
+    // 이름이 같으면 기존 String 을 유지 (이미 조회된 row 들이 공유하고 있음)
+    private void put(Long teamId, String name) {
+        if (name == null) {
+            names.remove(teamId);
+            return;
+        }
+        names.compute(teamId, (id, current) -> Objects.equals(current, name) ? current : name);
+    }
+}
@@ -0,0 +1,404 @@
+package study.querydsl.domain.repository.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.concurrent.BackgroundRefresh;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.config.PrimaryReadTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.event.EntityChangedEvent;
+import study.querydsl.enums.EntityChangeType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static study.querydsl.domain.entity.QMember.member;
+
+// 회원 이름 검색용 메모리 인덱스 (MemberSearchCondition.usernamePrefix, usernameContains)
+// - 접두사 : 이름 순으로 정렬된 TreeMap 의 범위 조회
+// - 포함 : 이름을 3글자씩 자른 trigram -> 회원 id, 검색어의 trigram 중 회원이 가장 적은 것만 후보로 보고 실제 이름으로 확인
+//   (접두사 없이 3글자 미만이면 후보를 줄일 수 없으므로 찾지 않고 like 로 조회)
+// 대소문자는 like 와 같이 구분한다.
+// 찾은 id 는 후보일 뿐이고 조회할 때 like 조건도 같이 건다. (MemberConditionCompiler)
+// 시작할 때, bulk 변경 이벤트가 왔을 때 (별도 스레드) DB 에서 다시 만들고 회원 insert / update / delete 이벤트(커밋 후) 로 갱신
+// username.index.drift-check-interval 마다 회원 수, 최대 id, 이름 길이 합만 DB 와 비교해서 다르면 전체를 다시 읽고
+// 다르면 (username.index.drift 메트릭) DB 값으로 교체
+// (길이가 같은 이름으로 바뀐 것은 비교로 알 수 없으므로 username.index.full-check-interval 마다 한번은 전체를 다시 읽음)
+// 회원 전체 이름을 들고 있으므로 기본으로 꺼져 있음 (member.search.username-index-enabled, 꺼져 있으면 항상 like)
+// 메모리는 8글자 이름 기준 회원당 약 0.5KB (id -> 이름, 이름 -> id, trigram 6개 -> id) 로
+// 100만명이면 약 500MB, 1000만명이면 약 5GB -> 힙에 여유가 있는 규모에서만 켤 것
+// like 조건을 같이 걸어도 인덱스에 없는 회원은 빠지므로 인덱스가 DB 보다 늦을 수 있는 동안은 사용하지 않는다.
+// - bulk 변경 이벤트를 받은 뒤 다시 만들 때까지 : isReady() 가 false (like 로 조회)
+// - 이벤트 없이 바뀐 데이터 (native 쿼리, 다른 서버의 변경) : 알 수 없으므로 다음 drift 검증까지
+//   (길이가 같은 이름으로 바뀌었으면 full-check-interval 까지) 새 이름이 검색어에 맞는 회원이 빠질 수 있음
+//   (UsernameIndexTest.driftTest)
+@Slf4j
+@Component
+public class UsernameIndex implements DisposableBean {
+    private static final int GRAM = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final PrimaryReadTemplate primaryReads;
+    private final MemberSearchProperties properties;
+    private final Duration fullCheckInterval;
+    private final Counter drift;
+    private final BackgroundRefresh background;
+    // DB 에서 다시 읽는 작업 (rebuild, checkDrift) 은 한번에 하나씩
+    private final Object reloadLock = new Object();
+
+    // 조회는 read lock, 변경은 write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Entries entries = new Entries();
+    private boolean ready;
+    // bulk 변경 이벤트를 받았고 아직 다시 만들지 못함
+    private boolean stale;
+    // 다시 읽는 중에 들어온 변경 (DB 를 다 읽은 뒤 다시 적용)
+    private List<EntityChangedEvent> pending;
+    // 받은 이벤트 수 (drift 비교 중에 변경이 있었는지 확인용)
+    private long received;
+    // 마지막으로 DB 전체를 읽은 시각 (System.nanoTime)
+    private long reloadedAt;
+
+    public UsernameIndex(JPAQueryFactory queryFactory, PrimaryReadTemplate primaryReads,
+                         MemberSearchProperties properties, MeterRegistry meterRegistry,
+                         @Value("${username.index.full-check-interval:PT6H}") Duration fullCheckInterval) {
+        this.queryFactory = queryFactory;
+        // 커밋 후 이벤트에서 호출되어도 새 트랜잭션, replica 가 있어도 primary 에서 조회
+        this.primaryReads = primaryReads;
+        this.properties = properties;
+        this.fullCheckInterval = fullCheckInterval;
+        this.drift = meterRegistry.counter("username.index.drift");
+        this.background = new BackgroundRefresh("username-index-rebuild", this::rebuild);
+    }
+
+    // 처음 만들어지기 전, bulk 변경 후 다시 만들기 전에는 사용할 수 없음 (like 로 조회)
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready && !stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.usernames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // prefix 로 시작하고 contains 를 포함하는 회원 id (null 인 조건은 무시)
+    // limit 명을 넘으면 (in 절이 너무 커지므로) 또는 인덱스로 후보를 줄일 수 없으면 null (like 로 조회)
+    // read lock 을 잡고 있는 동안 변경(write lock) 이 막히므로 확인하는 후보 수도 usernameIndexMaxCandidates 로 제한
+    // (흔한 trigram 은 회원 수 만큼 후보가 있을 수 있음 -> 넘으면 like 로 조회)
+    public Set<Long> find(String prefix, String contains, int limit) {
+        boolean byTrigram = contains != null && contains.length() >= GRAM;
+        if (prefix == null && !byTrigram) {
+            return null;
+        }
+        int maxCandidates = properties.getUsernameIndexMaxCandidates();
+        lock.readLock().lock();
+        try {
+            Set<Long> found = new HashSet<>();
+            if (byTrigram) {
+                Set<Long> candidates = entries.smallestTrigram(contains);
+                if (candidates.size() > maxCandidates) {
+                    return null;
+                }
+                for (Long id : candidates) {
+                    if (!collect(found, id, prefix, contains, limit)) {
+                        return null;
+                    }
+                }
+                return found;
+            }
+            // 접두사 범위는 limit 을 넘거나 후보를 maxCandidates 개 넘게 본 순간 멈춤 (짧은 접두사도 범위 전체를 보지 않음)
+            int examined = 0;
+            for (Set<Long> ids : entries.byUsername.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    if (++examined > maxCandidates || !collect(found, id, prefix, contains, limit)) {
+                        return null;
+                    }
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!properties.isUsernameIndexEnabled()) {
+            return;
+        }
+        reload(loaded -> {
+            entries = loaded;
+            ready = true;
+            stale = false;
+        });
+    }
+
+    // 이벤트를 놓쳤으면 (ex. native 쿼리, 다른 서버의 변경) DB 값으로 맞춤
+    // 먼저 요약 값(회원 수, 최대 id, 이름 길이 합) 만 비교하고 다르거나 full-check-interval 이 지났을 때만 전체를 다시 읽음
+    // 요약을 읽는 중에 이벤트가 오면 비교할 수 없으므로 전체를 다시 읽음
+    // 전체를 읽는 중에 들어온 변경은 읽은 값에도 적용한 뒤 비교하므로 그 사이의 변경은 차이로 보지 않음
+    @Scheduled(fixedDelayString = "${username.index.drift-check-interval:PT10M}",
+        initialDelayString = "${username.index.drift-check-interval:PT10M}")
+    public void checkDrift() {
+        if (!properties.isUsernameIndexEnabled()) {
+            return;
+        }
+        synchronized (reloadLock) {
+            if (probeMatches()) {
+                return;
+            }
+            reloadAndCompare();
+        }
+    }
+
+    private boolean probeMatches() {
+        long before;
+        lock.readLock().lock();
+        try {
+            if (!ready || stale || System.nanoTime() - reloadedAt >= fullCheckInterval.toNanos()) {
+                return false;
+            }
+            before = received;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Summary database = primaryReads.execute(this::probe);
+        lock.readLock().lock();
+        try {
+            return received == before && database.equals(entries.summary());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reloadAndCompare() {
+        reload(loaded -> {
+            if (stale) {
+                // bulk 변경이 아직 반영되지 않은 것이므로 drift 는 아님
+                entries = loaded;
+                stale = false;
+            } else if (!loaded.usernames.equals(entries.usernames)) {
+                drift.increment();
+                log.warn("username index drift detected. rebuilt from database");
+                entries = loaded;
+            }
+            ready = true;
+        });
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isFor(Member.class) || !properties.isUsernameIndexEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            received++;
+            if (event.getType() == EntityChangeType.BULK) {
+                stale = true;
+            }
+            if (pending != null) {
+                pending.add(event);
+                return;
+            }
+            if (event.getType() != EntityChangeType.BULK) {
+                entries.apply(event);
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // bulk update / delete 는 어떤 회원이 바뀌었는지 알 수 없음 (커밋한 스레드는 기다리지 않음)
+        background.request();
+    }
+
+    @Override
+    public void destroy() {
+        background.shutdown();
+    }
+
+    // DB 에서 읽고 그 사이에 들어온 변경까지 적용한 값을 write lock 을 잡은 상태로 onLoaded 에 넘김
+    private void reload(Consumer<Entries> onLoaded) {
+        synchronized (reloadLock) {
+            boolean again = true;
+            while (again) {
+                lock.writeLock().lock();
+                try {
+                    pending = new ArrayList<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                Entries loaded = new Entries();
+                for (Tuple row : load()) {
+                    loaded.put(row.get(member.id), row.get(member.username));
+                }
+                lock.writeLock().lock();
+                try {
+                    again = false;
+                    for (EntityChangedEvent event : pending) {
+                        if (event.getType() == EntityChangeType.BULK) {
+                            again = true;
+                        } else {
+                            loaded.apply(event);
+                        }
+                    }
+                    pending = null;
+                    if (!again) {
+                        onLoaded.accept(loaded);
+                        reloadedAt = System.nanoTime();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // limit 을 넘으면 false
+    private boolean collect(Set<Long> found, Long id, String prefix, String contains, int limit) {
+        String username = entries.usernames.get(id);
+        if (username != null && matches(username, prefix, contains)) {
+            found.add(id);
+            return found.size() <= limit;
+        }
+        return true;
+    }
+
+    private static boolean matches(String username, String prefix, String contains) {
+        return (prefix == null || username.startsWith(prefix)) && (contains == null || username.contains(contains));
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+
+    private static void removeId(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // 이름이 있는 회원만 (인덱스는 이름이 없는 회원을 들고 있지 않음)
+    private Summary probe() {
+        Tuple row = queryFactory
+            .select(member.count(), member.id.max(), member.username.length().sum())
+            .from(member)
+            .where(member.username.isNotNull())
+            .fetchOne();
+        Number lengthSum = row.get(2, Number.class);
+        return new Summary(row.get(0, Long.class), row.get(1, Long.class), lengthSum != null ? lengthSum.longValue() : 0);
+    }
+
+    private List<Tuple> load() {
+        return primaryReads.execute(() -> queryFactory.select(member.id, member.username).from(member).fetch());
+    }
+
+    private static class Entries {
+        private final Map<Long, String> usernames = new HashMap<>();
+        private final TreeMap<String, Set<Long>> byUsername = new TreeMap<>();
+        private final Map<String, Set<Long>> byTrigram = new HashMap<>();
+        private long lengthSum;
+
+        // 회원 id -> 이름을 들고 있으므로 변경 전 값 없이도 이전 이름을 지울 수 있음
+        private void apply(EntityChangedEvent event) {
+            Member changed = (Member) event.getEntity();
+            remove(changed.getId());
+            if (event.getType() != EntityChangeType.DELETE) {
+                put(changed.getId(), changed.getUsername());
+            }
+        }
+
+        private void put(Long id, String username) {
+            if (id == null || username == null) {
+                return;
+            }
+            remove(id);
+            usernames.put(id, username);
+            lengthSum += username.length();
+            byUsername.computeIfAbsent(username, key -> new HashSet<>()).add(id);
+            for (String trigram : trigrams(username)) {
+                byTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void remove(Long id) {
+            String username = usernames.remove(id);
+            if (username == null) {
+                return;
+            }
+            lengthSum -= username.length();
+            removeId(byUsername, username, id);
+            for (String trigram : trigrams(username)) {
+                removeId(byTrigram, trigram, id);
+            }
+        }
+
+        private Summary summary() {
+            Long maxId = usernames.isEmpty() ? null : Collections.max(usernames.keySet());
+            return new Summary((long) usernames.size(), maxId, lengthSum);
+        }
+
+        // contains 의 trigram 중 회원이 가장 적은 것 (하나라도 없으면 맞는 회원이 없음)
+        private Set<Long> smallestTrigram(String contains) {
+            Set<Long> smallest = null;
+            for (String trigram : trigrams(contains)) {
+                Set<Long> ids = byTrigram.get(trigram);
+                if (ids == null) {
+                    return Set.of();
+                }
+                if (smallest == null || ids.size() < smallest.size()) {
+                    smallest = ids;
+                }
+            }
+            return smallest;
+        }
+    }
+
+    // drift 검증용 요약 값 (회원 수, 최대 id, 이름 길이 합)
+    @EqualsAndHashCode
+    private static final class Summary {
+        private final Long count;
+        private final Long maxId;
+        private final long lengthSum;
+
+        private Summary(Long count, Long maxId, long lengthSum) {
+            this.count = count;
+            this.maxId = maxId;
+            this.lengthSum = lengthSum;
+        }
+    }
+}
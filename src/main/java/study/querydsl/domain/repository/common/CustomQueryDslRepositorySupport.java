@@ -10,6 +10,7 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.graph.GraphSemantic;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +32,7 @@ public abstract class CustomQueryDslRepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private QueryCacheHints queryCacheHints;
 
     public CustomQueryDslRepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null");
@@ -49,11 +51,16 @@ public abstract class CustomQueryDslRepositorySupport {
             PathBuilder<>(path.getType(), path.getMetadata()));
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
+    @Autowired
+    public void setQueryCacheHints(QueryCacheHints queryCacheHints) {
+        this.queryCacheHints = queryCacheHints;
+    }
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(queryCacheHints, "QueryCacheHints must not be null!");
     }
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
@@ -64,6 +71,15 @@ public abstract class CustomQueryDslRepositorySupport {
     protected EntityManager getEntityManager() {
         return entityManager;
     }
+    protected <T> JPAQuery<T> cacheable(JPAQuery<T> query) {
+        return queryCacheHints.apply(query);
+    }
+    // 이름 있는 엔티티 그래프(@NamedEntityGraph)를 fetch graph 로 적용
+    // to-one 연관관계만 넣어야 row 수가 늘지 않아서 페이징이 DB 에서 그대로 동작함
+    // (컬렉션을 넣고 페이징하면 hibernate.query.fail_on_pagination_over_collection_fetch 설정으로 실패)
+    protected <T> JPAQuery<T> withEntityGraph(JPAQuery<T> query, String entityGraphName) {
+        return query.setHint(GraphSemantic.FETCH.getJpaHintName(), entityManager.getEntityGraph(entityGraphName));
+    }
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -72,7 +88,7 @@ public abstract class CustomQueryDslRepositorySupport {
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
-        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery jpaQuery = cacheable(contentQuery.apply(getQueryFactory()));
         List<T> content = getQuerydsl().applyPagination(pageable,
             jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
@@ -81,10 +97,21 @@ public abstract class CustomQueryDslRepositorySupport {
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
         JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery jpaContentQuery = cacheable(contentQuery.apply(getQueryFactory()));
+        List<T> content = getQuerydsl().applyPagination(pageable,
+            jpaContentQuery).fetch();
+        JPAQuery countResult = cacheable(countQuery.apply(getQueryFactory()));
+        return PageableExecutionUtils.getPage(content, pageable,
+            countResult::fetchCount);
+    }
+    // 컨텐츠 쿼리에만 엔티티 그래프를 적용 (count 쿼리에는 필요 없음)
+    protected <T> Page<T> applyPagination(Pageable pageable, String entityGraphName,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+        JPAQuery> countQuery) {
+        JPAQuery jpaContentQuery = withEntityGraph(cacheable(contentQuery.apply(getQueryFactory())), entityGraphName);
         List<T> content = getQuerydsl().applyPagination(pageable,
             jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        JPAQuery countResult = cacheable(countQuery.apply(getQueryFactory()));
         return PageableExecutionUtils.getPage(content, pageable,
             countResult::fetchCount);
     }
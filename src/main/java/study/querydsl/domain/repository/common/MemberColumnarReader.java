@@ -0,0 +1,157 @@
+package study.querydsl.domain.repository.common;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.domain.repository.cache.TeamNameDictionary;
+import study.querydsl.domain.repository.common.MemberConditionCompiler.SqlCondition;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// MemberSearchCondition 으로 회원/팀을 조회해서 ResultSet 에서 바로 MemberTeamColumns 의 배열을 채운다.
+// hibernate 의 row 처리(Object[] -> 생성자 호출) 를 거치지 않아야 row 마다 Long, Integer, DTO 가 만들어지지 않으므로 JDBC 로 직접 읽음
+// 조건은 MemberConditionCompiler 가 contentQuery 와 같은 shape 표로 만들어 줌 (join 방식, UsernameIndex 후보 id, 정렬 없음까지 같음)
+// statement 는 세션의 JdbcCoordinator 로 만들어서 StatementInspector (repository.statements 메트릭), SQL 로그, hibernate 통계를 그대로 탄다.
+@Component
+@RequiredArgsConstructor
+public class MemberColumnarReader {
+    // 팀이 이 수를 넘으면 팀 코드 찾을 때 선형 탐색 대신 HashMap 사용
+    private static final int LINEAR_LOOKUP_LIMIT = 32;
+
+    private static final String SELECT = "select m.member_id, m.username, m.age, m.team_id, t.name from member m";
+    private static final String INNER_JOIN_TEAM = " join team t on t.team_id = m.team_id";
+    private static final String LEFT_JOIN_TEAM = " left join team t on t.team_id = m.team_id";
+
+    private final EntityManager em;
+    private final MemberSearchProperties properties;
+    private final TeamNameDictionary teamNames;
+    private final MemberConditionCompiler conditionCompiler;
+
+    // 트랜잭션 안에서 호출해야 함 (세션의 커넥션을 그대로 사용)
+    public MemberTeamColumns read(MemberSearchCondition condition) {
+        // native 조회는 auto flush 대상이 아니므로 쓰기 트랜잭션에서 변경된 엔티티는 먼저 반영
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+        SqlCondition sqlCondition = conditionCompiler.sqlCondition(condition);
+        String sql = SELECT + (sqlCondition.isInnerJoinTeam() ? INNER_JOIN_TEAM : LEFT_JOIN_TEAM) + sqlCondition.getWhere();
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            statement.setFetchSize(properties.getStreamFetchSize());
+            List<Object> parameters = sqlCondition.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            ResultSet resultSet = jdbc.getResultSetReturn().extract(statement);
+            ColumnsBuilder builder = new ColumnsBuilder(properties.getStreamFetchSize(), teamNames);
+            while (resultSet.next()) {
+                builder.add(resultSet);
+            }
+            return builder.build();
+        } catch (SQLException e) {
+            throw session.getFactory().getJdbcServices().getSqlExceptionHelper()
+                .convert(e, "could not read member columns", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+
+    // 배열이 차면 두배로 늘리면서 채움 (ArrayList 와 같은 방식)
+    private static final class ColumnsBuilder {
+        private final TeamNameDictionary dictionary;
+        private int size;
+        private long[] memberIds;
+        private String[] usernames;
+        private int[] ages;
+        private int[] teamCodes;
+
+        // 팀 사전: 코드 = 처음 나온 순서
+        private int teamCount;
+        private long[] teamIds = new long[8];
+        private String[] teamNames = new String[8];
+        private Map<Long, Integer> teamCodeMap;
+
+        ColumnsBuilder(int initialCapacity, TeamNameDictionary dictionary) {
+            this.dictionary = dictionary;
+            int capacity = Math.max(initialCapacity, 16);
+            memberIds = new long[capacity];
+            usernames = new String[capacity];
+            ages = new int[capacity];
+            teamCodes = new int[capacity];
+        }
+
+        void add(ResultSet resultSet) throws SQLException {
+            if (size == memberIds.length) {
+                int capacity = size << 1;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamCodes = Arrays.copyOf(teamCodes, capacity);
+            }
+            memberIds[size] = resultSet.getLong(1);
+            usernames[size] = resultSet.getString(2);
+            ages[size] = resultSet.getInt(3);
+            long teamId = resultSet.getLong(4);
+            teamCodes[size] = resultSet.wasNull() ? MemberTeamColumns.NO_TEAM : teamCode(teamId, resultSet);
+            size++;
+        }
+
+        // 팀 이름은 팀마다 처음 한번만 읽으므로 같은 팀의 row 는 같은 String 을 공유 (조회 결과끼리는 TeamNameDictionary 로 공유)
+        private int teamCode(long teamId, ResultSet resultSet) throws SQLException {
+            if (teamCodeMap == null) {
+                for (int code = 0; code < teamCount; code++) {
+                    if (teamIds[code] == teamId) {
+                        return code;
+                    }
+                }
+            } else {
+                Integer code = teamCodeMap.get(teamId);
+                if (code != null) {
+                    return code;
+                }
+            }
+            return addTeam(teamId, dictionary.canonical(teamId, resultSet.getString(5)));
+        }
+
+        private int addTeam(long teamId, String teamName) {
+            if (teamCount == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, teamCount << 1);
+                teamNames = Arrays.copyOf(teamNames, teamCount << 1);
+            }
+            int code = teamCount++;
+            teamIds[code] = teamId;
+            teamNames[code] = teamName;
+            if (teamCodeMap != null) {
+                teamCodeMap.put(teamId, code);
+            } else if (teamCount > LINEAR_LOOKUP_LIMIT) {
+                teamCodeMap = new HashMap<>();
+                for (int i = 0; i < teamCount; i++) {
+                    teamCodeMap.put(teamIds[i], i);
+                }
+            }
+            return code;
+        }
+
+        MemberTeamColumns build() {
+            return new MemberTeamColumns(size, memberIds, usernames, ages, teamCodes,
+                Arrays.copyOf(teamIds, teamCount), Arrays.copyOf(teamNames, teamCount));
+        }
+    }
+}
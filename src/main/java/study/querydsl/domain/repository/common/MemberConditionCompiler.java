@@ -0,0 +1,327 @@
+package study.querydsl.domain.repository.common;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.domain.repository.cache.TeamNameDictionary;
+import study.querydsl.domain.repository.cache.UsernameIndex;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.domain.entity.QMember.member;
+import static study.querydsl.domain.entity.QTeam.team;
+
+// MemberSearchCondition -> querydsl 조건 (repository 마다 중복되던 usernameEq, teamNameEq, ageGoe, ageLoe 를 모음)
+// 어떤 필드가 채워졌는지(shape) 에 따라 쿼리 모양은 정해져 있으므로 shape 별로 한번만 만들어 두고
+// 값은 Param 으로 남겨서 조회할 때는 clone 후 바인딩만 한다.
+// shape 별 JPQL 이 항상 같으므로 hibernate query plan cache 도 그대로 재사용됨 (hibernate.cache.query.plan 메트릭)
+// usernamePrefix, usernameContains 는 UsernameIndex 로 회원 id 를 먼저 찾아서 id in 조건 + like 로 조회
+// (인덱스가 아직 없거나, 맞는 회원이 너무 많거나, 쓰기 트랜잭션 안이면 like 로만 조회)
+// JDBC 로 직접 조회하는 MemberColumnarReader 도 같은 shape 표로 만든 SQL 조건을 씀 (sqlCondition)
+// 인덱스는 조회 사이에도 바뀌므로 컨텐츠와 count 처럼 같은 검색의 여러 쿼리는 resolve 한 결과(Resolved) 를 같이 써야
+// 같은 회원 id 후보로 조회됨
+@Component
+@RequiredArgsConstructor
+public class MemberConditionCompiler {
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+    private static final Param<String> USERNAME_PREFIX = new Param<>(String.class, "usernamePrefix");
+    private static final Param<String> USERNAME_CONTAINS = new Param<>(String.class, "usernameContains");
+    @SuppressWarnings("rawtypes")
+    private static final Param<Collection> MEMBER_IDS = new Param<>(Collection.class, "memberIds");
+
+    private static final int USERNAME_SET = 1;
+    private static final int TEAM_NAME_SET = 1 << 1;
+    private static final int AGE_GOE_SET = 1 << 2;
+    private static final int AGE_LOE_SET = 1 << 3;
+    private static final int USERNAME_PREFIX_SET = 1 << 4;
+    private static final int USERNAME_CONTAINS_SET = 1 << 5;
+    private static final int MEMBER_IDS_SET = 1 << 6;
+
+    private static final char LIKE_ESCAPE = '!';
+    private static final String LIKE_SQL = "m.username like ? escape '" + LIKE_ESCAPE + "'";
+    // 맞는 회원이 없을 때 (빈 in 절은 만들 수 없으므로 없는 id 로 조회)
+    private static final List<Long> NO_MEMBER = List.of(-1L);
+
+    // shape 의 n 번째 bit 에 해당하는 파라미터와 SQL 조건 (JDBC 로 직접 조회할 때, MemberColumnarReader)
+    // SQL 은 member m, team t 별칭 기준이고 아래 PREDICATES 와 같은 조건
+    private static final Param<?>[] PARAMS = {
+        USERNAME, TEAM_NAME, AGE_GOE, AGE_LOE, USERNAME_PREFIX, USERNAME_CONTAINS, MEMBER_IDS
+    };
+    private static final String[] SQL_PREDICATES = {
+        "m.username = ?", "t.name = ?", "m.age >= ?", "m.age <= ?", LIKE_SQL, LIKE_SQL, "m.member_id in "
+    };
+
+    // shape 별 조건 (querydsl 표현식은 불변이라 여러 스레드에서 같이 써도 됨)
+    private static final Predicate[] PREDICATES = new Predicate[MEMBER_IDS_SET << 1];
+
+    static {
+        for (int shape = 0; shape < PREDICATES.length; shape++) {
+            List<Predicate> predicates = new ArrayList<>();
+            if ((shape & USERNAME_SET) != 0) {
+                predicates.add(member.username.eq(USERNAME));
+            }
+            if ((shape & TEAM_NAME_SET) != 0) {
+                predicates.add(team.name.eq(TEAM_NAME));
+            }
+            if ((shape & AGE_GOE_SET) != 0) {
+                predicates.add(member.age.goe(AGE_GOE));
+            }
+            if ((shape & AGE_LOE_SET) != 0) {
+                predicates.add(member.age.loe(AGE_LOE));
+            }
+            if ((shape & USERNAME_PREFIX_SET) != 0) {
+                predicates.add(member.username.like(USERNAME_PREFIX, LIKE_ESCAPE));
+            }
+            if ((shape & USERNAME_CONTAINS_SET) != 0) {
+                predicates.add(member.username.like(USERNAME_CONTAINS, LIKE_ESCAPE));
+            }
+            if ((shape & MEMBER_IDS_SET) != 0) {
+                predicates.add(Expressions.booleanOperation(Ops.IN, member.id, MEMBER_IDS));
+            }
+            PREDICATES[shape] = ExpressionUtils.allOf(predicates);
+        }
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final TeamNameDictionary teamNames;
+    private final UsernameIndex usernameIndex;
+    private final MemberSearchProperties properties;
+
+    // shape 별로 미리 만들어 둔 쿼리 (직접 실행하지 않고 항상 clone 해서 사용)
+    private final Map<Integer, JPAQuery<MemberTeamDto>> contentQueries = new ConcurrentHashMap<>();
+    private final Map<Integer, JPAQuery<?>> filterQueries = new ConcurrentHashMap<>();
+
+    // member, team 이 이미 from / join 되어 있는 쿼리에 검색 조건을 붙임
+    public <T> JPAQuery<T> where(JPAQuery<T> query, MemberSearchCondition condition) {
+        return where(query, resolve(condition));
+    }
+
+    public <T> JPAQuery<T> where(JPAQuery<T> query, Resolved resolved) {
+        return bind(query.where(PREDICATES[resolved.shape]), resolved);
+    }
+
+    // select MemberTeamDto from member join team where ...
+    // 팀 이름은 TeamNameDictionary 의 String 을 공유 (MemberTeamDtoExpression)
+    public JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return contentQuery(resolve(condition));
+    }
+
+    public JPAQuery<MemberTeamDto> contentQuery(Resolved resolved) {
+        JPAQuery<MemberTeamDto> prototype = contentQueries.computeIfAbsent(resolved.shape, shape -> {
+            JPAQuery<MemberTeamDto> query = queryFactory
+                .select(
+                    new MemberTeamDtoExpression(
+                        teamNames,
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                    )
+                )
+                .from(member);
+            return joinTeam(query, shape).where(PREDICATES[shape]);
+        });
+        return bind(prototype.clone(), resolved);
+    }
+
+    // select 없이 from member (join team) where ... 까지만 (count, id 조회용)
+    // count 는 team 조건이 있을 때만 join 하면 됨
+    public JPAQuery<?> filterQuery(MemberSearchCondition condition) {
+        return filterQuery(resolve(condition));
+    }
+
+    public JPAQuery<?> filterQuery(Resolved resolved) {
+        JPAQuery<?> prototype = filterQueries.computeIfAbsent(resolved.shape, shape -> {
+            JPAQuery<?> query = queryFactory.from(member);
+            if ((shape & TEAM_NAME_SET) != 0) {
+                query.join(member.team, team);
+            }
+            return query.where(PREDICATES[shape]);
+        });
+        return bind(prototype.clone(), resolved);
+    }
+
+    // contentQuery 와 같은 조건의 SQL where 절과 바인딩 값 (UsernameIndex 로 찾은 id 도 같이 씀)
+    // id 목록은 in_clause_parameter_padding 처럼 2의 거듭제곱 개로 채워서 SQL 모양을 몇 개로 유지
+    SqlCondition sqlCondition(MemberSearchCondition condition) {
+        Resolved resolved = resolve(condition);
+        StringBuilder where = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        for (int bit = 0; bit < PARAMS.length; bit++) {
+            if ((resolved.shape & (1 << bit)) == 0) {
+                continue;
+            }
+            where.append(where.length() == 0 ? " where " : " and ").append(SQL_PREDICATES[bit]);
+            Object value = value(bit, resolved);
+            if (value instanceof Collection) {
+                appendIn(where, parameters, (Collection<?>) value);
+            } else {
+                parameters.add(value);
+            }
+        }
+        return new SqlCondition((resolved.shape & TEAM_NAME_SET) != 0, where.toString(), parameters);
+    }
+
+    private static void appendIn(StringBuilder where, List<Object> parameters, Collection<?> values) {
+        int size = Integer.highestOneBit(values.size());
+        if (size < values.size()) {
+            size <<= 1;
+        }
+        Object last = null;
+        for (Object value : values) {
+            parameters.add(value);
+            last = value;
+        }
+        for (int i = values.size(); i < size; i++) {
+            parameters.add(last);
+        }
+        where.append('(').append("?, ".repeat(size - 1)).append("?)");
+    }
+
+    // 팀 이름 조건이 있으면 팀이 없는 회원은 어차피 걸러지므로 inner join 으로 조회
+    // (inner join 이어야 team.name 인덱스로 팀을 먼저 찾고 (team_id, age) 인덱스로 회원을 찾을 수 있음)
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, int shape) {
+        return (shape & TEAM_NAME_SET) != 0 ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> JPAQuery<T> bind(JPAQuery<T> query, Resolved resolved) {
+        for (int bit = 0; bit < PARAMS.length; bit++) {
+            if ((resolved.shape & (1 << bit)) != 0) {
+                query.set((Param<Object>) PARAMS[bit], value(bit, resolved));
+            }
+        }
+        return query;
+    }
+
+    // shape 의 bit 번째 조건에 바인딩할 값
+    private static Object value(int bit, Resolved resolved) {
+        MemberSearchCondition condition = resolved.condition;
+        switch (1 << bit) {
+            case USERNAME_SET:
+                return condition.getUsername();
+            case TEAM_NAME_SET:
+                return condition.getTeamName();
+            case AGE_GOE_SET:
+                return condition.getAgeGoe();
+            case AGE_LOE_SET:
+                return condition.getAgeLoe();
+            case USERNAME_PREFIX_SET:
+                return escapeLike(condition.getUsernamePrefix()) + "%";
+            case USERNAME_CONTAINS_SET:
+                return "%" + escapeLike(condition.getUsernameContains()) + "%";
+            default:
+                return resolved.memberIds;
+        }
+    }
+
+    // 쿼리 모양을 정하고 접두사 / 부분 검색을 인덱스로 찾은 회원 id 로 바꿀 수 있으면 바꿈
+    // 조회할 트랜잭션 안에서 호출 (쓰기 트랜잭션이면 인덱스를 쓰지 않음)
+    public Resolved resolve(MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        String prefix = hasText(condition.getUsernamePrefix()) ? condition.getUsernamePrefix() : null;
+        String contains = hasText(condition.getUsernameContains()) ? condition.getUsernameContains() : null;
+        if (prefix == null && contains == null) {
+            return new Resolved(condition, shape, null);
+        }
+        // 인덱스는 커밋된 값만 알고 있으므로 쓰기 트랜잭션 안에서는 like 로 (auto flush 된 변경까지 보임)
+        boolean writing = TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        Set<Long> memberIds = writing || !usernameIndex.isReady()
+            ? null
+            : usernameIndex.find(prefix, contains, properties.getUsernameIndexMaxIds());
+        // 인덱스로 찾은 id 는 후보로만 쓰고 like 조건은 항상 같이 건다
+        // (인덱스에만 남은 회원은 걸러지지만 인덱스에 없는 회원은 빠짐 -> UsernameIndex 가 늦을 수 있는 경우 참고)
+        if (prefix != null) {
+            shape |= USERNAME_PREFIX_SET;
+        }
+        if (contains != null) {
+            shape |= USERNAME_CONTAINS_SET;
+        }
+        if (memberIds == null) {
+            return new Resolved(condition, shape, null);
+        }
+        return new Resolved(condition, shape | MEMBER_IDS_SET, memberIds.isEmpty() ? NO_MEMBER : memberIds);
+    }
+
+    // like 의 특수문자(%, _) 를 문자 그대로 검색
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME_SET;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME_SET;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE_SET;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE_SET;
+        }
+        return shape;
+    }
+
+    // member m (join | left join) team t 뒤에 붙일 where 절과 순서대로 바인딩할 값
+    static final class SqlCondition {
+        private final boolean innerJoinTeam;
+        private final String where;
+        private final List<Object> parameters;
+
+        private SqlCondition(boolean innerJoinTeam, String where, List<Object> parameters) {
+            this.innerJoinTeam = innerJoinTeam;
+            this.where = where;
+            this.parameters = parameters;
+        }
+
+        // 팀 이름 조건이 있으면 inner join (contentQuery 와 같음)
+        boolean isInnerJoinTeam() {
+            return innerJoinTeam;
+        }
+
+        String getWhere() {
+            return where;
+        }
+
+        List<Object> getParameters() {
+            return parameters;
+        }
+    }
+
+    // 검색 조건과 쿼리 모양(shape), 인덱스로 찾은 회원 id
+    public static final class Resolved {
+        private final MemberSearchCondition condition;
+        private final int shape;
+        private final Collection<Long> memberIds;
+
+        private Resolved(MemberSearchCondition condition, int shape, Collection<Long> memberIds) {
+            this.condition = condition;
+            this.shape = shape;
+            this.memberIds = memberIds;
+        }
+    }
+}
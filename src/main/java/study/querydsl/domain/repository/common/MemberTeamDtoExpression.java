@@ -0,0 +1,31 @@
+package study.querydsl.domain.repository.common;
+
+import com.querydsl.core.types.ConstructorExpression;
+import com.querydsl.core.types.Expression;
+import study.querydsl.domain.repository.cache.TeamNameDictionary;
+import study.querydsl.dto.MemberTeamDto;
+
+// QMemberTeamDto 와 같지만 DTO 를 만들기 전에 팀 이름을 TeamNameDictionary 의 String 으로 바꿈
+// (같은 팀의 row 는 하나의 팀 이름 String 을 공유)
+final class MemberTeamDtoExpression extends ConstructorExpression<MemberTeamDto> {
+    private static final long serialVersionUID = 1L;
+
+    private static final int TEAM_ID = 3;
+    private static final int TEAM_NAME = 4;
+
+    private final transient TeamNameDictionary teamNames;
+
+    MemberTeamDtoExpression(TeamNameDictionary teamNames,
+                            Expression<Long> memberId, Expression<String> username, Expression<Integer> age,
+                            Expression<Long> teamId, Expression<String> teamName) {
+        super(MemberTeamDto.class, new Class<?>[]{Long.class, String.class, Integer.class, Long.class, String.class},
+            memberId, username, age, teamId, teamName);
+        this.teamNames = teamNames;
+    }
+
+    @Override
+    public MemberTeamDto newInstance(Object... args) {
+        args[TEAM_NAME] = teamNames.canonical((Long) args[TEAM_ID], (String) args[TEAM_NAME]);
+        return super.newInstance(args);
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.domain.repository.common;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberSearchProperties;
+
+// member.search.query-cache=true 이면 querydsl 조회에 hibernate 쿼리 캐시 힌트를 붙임
+// 쿼리 캐시는 Member, Team 테이블이 바뀌면 통째로 무효화 되므로 변경이 적을 때만 켜는걸 권장
+// (stream(), scroll 조회에는 쿼리 캐시가 적용되지 않으므로 붙이지 않음)
+@Component
+@RequiredArgsConstructor
+public class QueryCacheHints {
+    private final MemberSearchProperties properties;
+
+    public <T> JPAQuery<T> apply(JPAQuery<T> query) {
+        if (!properties.isQueryCache()) {
+            return query;
+        }
+        return query.setHint(QueryHints.HINT_CACHEABLE, true);
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberSeedProperties;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.event.EntityChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+// 대량 데이터 적재
+// - 엔티티를 만들지 않고 JdbcTemplate.batchUpdate 로 batchSize 개씩 묶어서 insert
+//   (em.persist 는 row 마다 영속성 컨텍스트, 2차 캐시, 커밋 후 이벤트를 거치므로 적재에는 맞지 않음)
+// - id 는 엔티티와 같은 sequence generator 로 할당 (allocationSize 만큼 한번에, 이후 em.persist 와 겹치지 않음)
+// - chunkSize 마다 트랜잭션을 나눔
+// - row 마다 이벤트를 보내지 않고 적재가 끝난 뒤 Team, Member bulk 이벤트를 한번씩 보냄
+//   (TeamStatistics, UsernameIndex, TeamNameDictionary 등은 bulk 이벤트를 받으면 다시 읽음)
+// - JDBC 로 넣었으므로 hibernate 는 모름, 2차 캐시 (Team.members, 쿼리 캐시 포함) 는 끝난 뒤 비움
+// 팀 이름은 teamA, teamB ... (26개 이후는 team26, team27 ...), 회원은 member0 ~, 나이는 0 ~ 99
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberBulkLoader {
+    // 엔티티의 version 초기값과 같음
+    private static final long INITIAL_VERSION = 0L;
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MemberSeedProperties properties;
+
+    public void load(int teamCount, int memberCount) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long start = System.currentTimeMillis();
+
+        List<Long> teamIds = transaction.execute(status -> saveTeams(teamCount));
+
+        int chunkSize = properties.getChunkSize();
+        for (int from = 0; from < memberCount; from += chunkSize) {
+            int to = Math.min(from + chunkSize, memberCount);
+            int chunkFrom = from;
+            transaction.executeWithoutResult(status -> saveMembers(teamIds, chunkFrom, to));
+            log.info("member bulk load {}/{}", to, memberCount);
+        }
+
+        em.getEntityManagerFactory().getCache().evictAll();
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Team.class));
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Member.class));
+        log.info("member bulk load done. teams={}, members={}, {}ms",
+            teamCount, memberCount, System.currentTimeMillis() - start);
+    }
+
+    private List<Long> saveTeams(int teamCount) {
+        List<Long> teamIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            Long teamId = nextId(Team.class);
+            teamIds.add(teamId);
+            rows.add(new Object[]{teamId, teamName(i), INITIAL_VERSION});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name, version) values (?, ?, ?)", rows);
+        return teamIds;
+    }
+
+    private void saveMembers(List<Long> teamIds, int from, int to) {
+        List<Object[]> rows = new ArrayList<>(properties.getBatchSize());
+        for (int i = from; i < to; i++) {
+            Long teamId = teamIds.isEmpty() ? null : teamIds.get(i % teamIds.size());
+            rows.add(new Object[]{nextId(Member.class), "member" + i, i % 100, teamId, INITIAL_VERSION});
+            if (rows.size() == properties.getBatchSize()) {
+                insertMembers(rows);
+                rows.clear();
+            }
+        }
+        insertMembers(rows);
+    }
+
+    private void insertMembers(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "insert into member (member_id, username, age, team_id, version) values (?, ?, ?, ?, ?)", rows);
+    }
+
+    // 엔티티의 @SequenceGenerator (pooled) 로 id 할당, sequence 는 allocationSize 마다 한번만 호출됨
+    private Long nextId(Class<?> entityType) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel()
+            .entityPersister(entityType)
+            .getIdentifierGenerator();
+        return (Long) generator.generate(session, null);
+    }
+
+    private static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+
+// 회원 수정 (엔티티를 읽어서 바꾸는 방식)
+// 같은 회원을 동시에 수정하면 version 으로 충돌을 감지하고 다시 읽어서 재시도하므로 수정이 사라지지 않음
+// 각 메서드가 자체 트랜잭션으로 실행되므로 트랜잭션 밖에서 호출해야 함
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+    private final EntityManager em;
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public void changeTeam(Long memberId, Long teamId) {
+        retryExecutor.run("member.changeTeam", () -> {
+            Team team = em.find(Team.class, teamId);
+            if (team == null) {
+                throw new EntityNotFoundException("team not found. id=" + teamId);
+            }
+            findMember(memberId).changeTeam(team);
+        });
+    }
+
+    public int addAge(Long memberId, int amount) {
+        return retryExecutor.execute("member.addAge", () -> {
+            Member member = findMember(memberId);
+            member.setAge(member.getAge() + amount);
+            return member.getAge();
+        });
+    }
+
+    private Member findMember(Long memberId) {
+        Member member = em.find(Member.class, memberId);
+        if (member == null) {
+            throw new EntityNotFoundException("member not found. id=" + memberId);
+        }
+        return member;
+    }
+}
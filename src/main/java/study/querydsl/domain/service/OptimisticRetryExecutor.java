@@ -0,0 +1,79 @@
+package study.querydsl.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.OptimisticRetryProperties;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// 낙관적 락 충돌(@Version 불일치) 이 나면 새 트랜잭션에서 처음부터 다시 실행
+// 매 시도마다 새 트랜잭션(새 영속성 컨텍스트) 이므로 work 안에서 엔티티를 다시 조회해야 함
+// 지표 (operation 태그)
+// - optimistic.lock.conflicts : 충돌 횟수
+// - optimistic.lock.retries   : 재시도 횟수
+// - optimistic.lock.failures  : maxAttempts 까지 모두 충돌해서 실패한 횟수
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private final TransactionTemplate transaction;
+    private final OptimisticRetryProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   OptimisticRetryProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                counter("optimistic.lock.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("optimistic.lock.failures", operation).increment();
+                    log.warn("optimistic lock conflict. operation={}, attempts={}", operation, attempt);
+                    throw e;
+                }
+                counter("optimistic.lock.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // 같이 충돌한 트랜잭션들이 동시에 다시 시도하지 않도록 랜덤 값을 더함
+    private void backoff(int attempt) {
+        long base = properties.getBackoff().toMillis() << Math.min(attempt - 1, 10);
+        long sleep = base + ThreadLocalRandom.current().nextLong(properties.getBackoff().toMillis() + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry " + e.getMessage(), e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
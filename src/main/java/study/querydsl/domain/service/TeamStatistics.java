@@ -0,0 +1,444 @@
+package study.querydsl.domain.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.concurrent.BackgroundRefresh;
+import study.querydsl.config.PrimaryReadTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.event.EntityChangedEvent;
+import study.querydsl.domain.event.InFlightCommits;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.enums.EntityChangeType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static study.querydsl.domain.entity.QMember.member;
+import static study.querydsl.domain.entity.QTeam.team;
+
+// 팀별 회원 나이 통계 (count, sum, avg, min, max) 를 메모리에 들고 있다가 바로 돌려줌 (조회시 DB 를 타지 않음)
+// - 메모리에는 팀별 값만 들고 있음 (회원 수와 상관없이 팀 수 * 나이 종류 만큼)
+// - 회원 insert / update / delete 이벤트(커밋 후) 로 바뀐 만큼만 반영 (update, delete 는 변경 전 팀, 나이를 빼고 다시 더함)
+// - 나이별 인원수를 들고 있어서 회원이 빠져도 min, max 를 다시 계산할 수 있음
+// - 시작할 때, bulk 변경 이벤트가 왔을 때, 변경 전 값이 없을 때는 groupBy 쿼리로 전부 다시 계산 (bulk 는 별도 스레드에서)
+//   조회 결과에 이미 들어있는 커밋의 이벤트가 조회 후에 올 수 있으므로
+//   1. 조회 전부터 이벤트를 모아두고 (pending)
+//   2. 한 스냅샷 트랜잭션에서 통계를 읽고, 그 전에 flush 한 트랜잭션이 모두 끝날 때까지 (이벤트까지) 기다린 뒤 (InFlightCommits)
+//   3. 모아둔 이벤트의 회원 version 을 같은 스냅샷에서 읽어서 스냅샷보다 새 version 의 이벤트만 다시 적용
+//   기다리다 timeout 이 나거나 모으는 중에 bulk 변경이 오면 읽은 값은 버리고 다시 계산 (겹친 스냅샷은 쓰지 않음)
+// - team.stats.drift-check-interval 마다 팀별 count, sum, min, max 만 조회 (팀 수 만큼의 행) 해서 비교하고
+//   다르면 (team.stats.drift 메트릭) 다시 계산
+@Slf4j
+@Component
+public class TeamStatistics implements DisposableBean {
+    private static final int MAX_RELOAD_ATTEMPTS = 3;
+    private static final Duration COMMIT_WAIT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int VERSION_CHUNK_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final PrimaryReadTemplate primaryReads;
+    private final InFlightCommits inFlightCommits;
+    private final Counter drift;
+    private final BackgroundRefresh background;
+    // DB 에서 다시 읽는 작업 (recompute, checkDrift) 은 한번에 하나씩
+    private final Object reloadLock = new Object();
+
+    // 아래는 모두 this 로 동기화
+    // teamId -> 통계
+    private Map<Long, Aggregate> aggregates = new HashMap<>();
+    // 받은 이벤트 수 (DB 를 읽는 동안 변경이 있었는지 확인용)
+    private long received;
+    // 다시 계산하는 중에 들어온 변경 (다 읽은 뒤 version 을 비교해서 다시 적용)
+    private List<EntityChangedEvent> pending;
+
+    public TeamStatistics(JPAQueryFactory queryFactory, PrimaryReadTemplate primaryReads,
+                          InFlightCommits inFlightCommits, MeterRegistry meterRegistry) {
+        this.queryFactory = queryFactory;
+        // 커밋 후 이벤트에서 호출되어도 새 트랜잭션, replica 가 있어도 primary 에서 조회
+        this.primaryReads = primaryReads;
+        this.inFlightCommits = inFlightCommits;
+        this.drift = meterRegistry.counter("team.stats.drift");
+        this.background = new BackgroundRefresh("team-stats-recompute", this::recompute);
+    }
+
+    public synchronized List<TeamStatsDto> findAll() {
+        List<TeamStatsDto> stats = new ArrayList<>(aggregates.size());
+        aggregates.forEach((teamId, aggregate) -> stats.add(aggregate.toDto(teamId)));
+        stats.sort(Comparator.comparing(TeamStatsDto::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recompute() {
+        synchronized (reloadLock) {
+            for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+                synchronized (this) {
+                    pending = new ArrayList<>();
+                }
+                Snapshot snapshot;
+                try {
+                    snapshot = primaryReads.executeSnapshot(this::loadSnapshot);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        pending = null;
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    boolean replayed = snapshot != null && snapshot.replay(pending);
+                    pending = null;
+                    if (replayed) {
+                        aggregates = snapshot.aggregates;
+                        return;
+                    }
+                }
+            }
+        }
+        // 지금 값은 이벤트로 계속 반영되고 있으므로 그대로 두고 다음 요청(또는 drift 검증) 에서 다시 계산
+        log.warn("team statistics recompute skipped. commits kept overlapping the snapshot");
+    }
+
+    // 이벤트를 놓쳤으면 (ex. native 쿼리, 다른 서버의 변경) DB 값으로 맞춤
+    // 조회 후 그 전에 시작한 커밋이 끝나기를 기다린 뒤에도 이벤트가 없었을 때만 비교 (커밋 중인 변경을 차이로 보지 않음)
+    @Scheduled(fixedDelayString = "${team.stats.drift-check-interval:PT10M}",
+        initialDelayString = "${team.stats.drift-check-interval:PT10M}")
+    public void checkDrift() {
+        synchronized (reloadLock) {
+            long before = received();
+            Map<Long, Aggregate> probed = primaryReads.execute(this::probe);
+            if (!awaitCommits()) {
+                return;
+            }
+            synchronized (this) {
+                if (received != before || matches(probed)) {
+                    return;
+                }
+            }
+            drift.increment();
+            log.warn("team statistics drift detected. recomputing from database");
+            recompute();
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isFor(Member.class) && !event.isFor(Team.class)) {
+            return;
+        }
+        boolean recompute;
+        synchronized (this) {
+            received++;
+            if (pending != null) {
+                pending.add(event);
+            }
+            recompute = !apply(aggregates, event);
+        }
+        if (recompute) {
+            // 커밋한 스레드는 전체 계산을 기다리지 않음
+            background.request();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        background.shutdown();
+    }
+
+    private synchronized long received() {
+        return received;
+    }
+
+    // 반영할 수 없으면 (bulk, 변경 전 값 없음) false
+    private static boolean apply(Map<Long, Aggregate> target, EntityChangedEvent event) {
+        return event.isFor(Member.class) ? applyMember(target, event) : applyTeam(target, event);
+    }
+
+    private static boolean applyMember(Map<Long, Aggregate> target, EntityChangedEvent event) {
+        Member changed = (Member) event.getEntity();
+        switch (event.getType()) {
+            case INSERT:
+                add(target, teamId(changed.getTeam()), changed.getAge());
+                return true;
+            case UPDATE:
+                if (!event.hasOldState()) {
+                    return false;
+                }
+                remove(target, teamId(event.getOldValue("team")), (Integer) event.getOldValue("age"));
+                add(target, teamId(changed.getTeam()), changed.getAge());
+                return true;
+            case DELETE:
+                if (!event.hasOldState()) {
+                    return false;
+                }
+                remove(target, teamId(event.getOldValue("team")), (Integer) event.getOldValue("age"));
+                return true;
+            default:
+                // bulk update / delete 는 어떤 회원이 바뀌었는지 알 수 없음
+                return false;
+        }
+    }
+
+    private static boolean applyTeam(Map<Long, Aggregate> target, EntityChangedEvent event) {
+        switch (event.getType()) {
+            case INSERT:
+            case UPDATE:
+                Team changed = (Team) event.getEntity();
+                target.computeIfAbsent(changed.getId(), teamId -> new Aggregate()).teamName = changed.getName();
+                return true;
+            case DELETE:
+                target.remove(((Team) event.getEntity()).getId());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void add(Map<Long, Aggregate> target, Long teamId, Integer age) {
+        if (teamId == null || age == null) {
+            return;
+        }
+        target.computeIfAbsent(teamId, id -> new Aggregate()).add(age, 1);
+    }
+
+    private static void remove(Map<Long, Aggregate> target, Long teamId, Integer age) {
+        if (teamId == null || age == null) {
+            return;
+        }
+        Aggregate aggregate = target.get(teamId);
+        if (aggregate != null) {
+            aggregate.remove(age);
+        }
+    }
+
+    // 스냅샷 트랜잭션 안에서 실행
+    // 통계를 읽고 그 전에 flush 한 트랜잭션이 끝나기를 기다린 뒤 (스냅샷에 보이는 커밋의 이벤트는 모두 pending 에 있음)
+    // 그때까지 모인 이벤트의 회원 version 을 같은 스냅샷에서 읽음
+    private Snapshot loadSnapshot() {
+        Map<Long, Aggregate> loaded = load();
+        if (!awaitCommits()) {
+            return null;
+        }
+        Set<Long> memberIds = new HashSet<>();
+        synchronized (this) {
+            for (EntityChangedEvent event : pending) {
+                if (event.getType() == EntityChangeType.BULK) {
+                    // bulk 변경이 스냅샷에 들어있는지 알 수 없음
+                    return null;
+                }
+                if (event.isFor(Member.class)) {
+                    memberIds.add(((Member) event.getEntity()).getId());
+                }
+            }
+        }
+        return new Snapshot(loaded, versions(memberIds));
+    }
+
+    private boolean awaitCommits() {
+        try {
+            return inFlightCommits.awaitBefore(inFlightCommits.watermark(), COMMIT_WAIT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 회원 id -> 스냅샷의 version (없는 회원은 null)
+    private Map<Long, Long> versions(Set<Long> memberIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        memberIds.forEach(id -> versions.put(id, null));
+        List<Long> ids = new ArrayList<>(memberIds);
+        for (int from = 0; from < ids.size(); from += VERSION_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + VERSION_CHUNK_SIZE, ids.size()));
+            for (Tuple row : queryFactory.select(member.id, member.version).from(member).where(member.id.in(chunk)).fetch()) {
+                versions.put(row.get(member.id), row.get(member.version));
+            }
+        }
+        return versions;
+    }
+
+    // 팀 이름과 (팀, 나이) 별 인원수 (나이는 0 ~ 99 라서 팀 수 * 100 행 이하)
+    private Map<Long, Aggregate> load() {
+        Map<Long, Aggregate> loaded = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            loaded.computeIfAbsent(row.get(team.id), teamId -> new Aggregate()).teamName = row.get(team.name);
+        }
+        List<Tuple> ageCounts = queryFactory
+            .select(member.team.id, member.age, member.count())
+            .from(member)
+            .where(member.team.isNotNull())
+            .groupBy(member.team.id, member.age)
+            .fetch();
+        for (Tuple row : ageCounts) {
+            loaded.computeIfAbsent(row.get(member.team.id), teamId -> new Aggregate())
+                .add(row.get(member.age), row.get(member.count()));
+        }
+        return loaded;
+    }
+
+    // 팀별 이름, count, sum, min, max (팀당 한 행, 나이별 인원수는 없음)
+    private Map<Long, Aggregate> probe() {
+        List<Tuple> rows = queryFactory
+            .select(team.id, team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+            .from(team)
+            .leftJoin(team.members, member)
+            .groupBy(team.id, team.name)
+            .fetch();
+        Map<Long, Aggregate> probed = new HashMap<>();
+        for (Tuple row : rows) {
+            Aggregate aggregate = new Aggregate();
+            aggregate.teamName = row.get(1, String.class);
+            aggregate.count = row.get(2, Number.class).longValue();
+            Number sum = row.get(3, Number.class);
+            aggregate.sum = sum != null ? sum.longValue() : 0;
+            Number min = row.get(4, Number.class);
+            Number max = row.get(5, Number.class);
+            if (min != null && max != null) {
+                aggregate.ages.put(min.intValue(), 0L);
+                aggregate.ages.put(max.intValue(), 0L);
+            }
+            probed.put(row.get(0, Long.class), aggregate);
+        }
+        return probed;
+    }
+
+    private boolean matches(Map<Long, Aggregate> probed) {
+        if (!probed.keySet().equals(aggregates.keySet())) {
+            return false;
+        }
+        for (Map.Entry<Long, Aggregate> entry : probed.entrySet()) {
+            if (!entry.getValue().sameSummary(aggregates.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 프록시여도 id 는 초기화 없이 읽을 수 있음
+    private static Long teamId(Object team) {
+        return team instanceof Team ? ((Team) team).getId() : null;
+    }
+
+    // 스냅샷으로 읽은 통계와 그때의 회원 version
+    private static class Snapshot {
+        private final Map<Long, Aggregate> aggregates;
+        // 회원 id -> 지금까지 반영된 version (통계에 없는 회원은 null)
+        private final Map<Long, Long> versions;
+
+        private Snapshot(Map<Long, Aggregate> aggregates, Map<Long, Long> versions) {
+            this.aggregates = aggregates;
+            this.versions = versions;
+        }
+
+        // 모아둔 이벤트를 순서대로 다시 적용 (스냅샷에 이미 들어있는 version 은 건너뜀)
+        // version 을 읽지 않은 회원의 이벤트는 기다린 뒤에 시작한 커밋이므로 스냅샷에 없음
+        // 다시 적용할 수 없는 이벤트가 있으면 false
+        private boolean replay(List<EntityChangedEvent> events) {
+            for (EntityChangedEvent event : events) {
+                if (event.getType() == EntityChangeType.BULK) {
+                    return false;
+                }
+                if (event.isFor(Member.class) && !isNewer((Member) event.getEntity(), event.getType())) {
+                    continue;
+                }
+                if (!apply(aggregates, event)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isNewer(Member changed, EntityChangeType type) {
+            Long id = changed.getId();
+            if (!versions.containsKey(id)) {
+                return true;
+            }
+            Long applied = versions.get(id);
+            if (type == EntityChangeType.INSERT) {
+                if (applied != null && applied >= changed.getVersion()) {
+                    return false;
+                }
+                versions.put(id, changed.getVersion());
+                return true;
+            }
+            // 통계에 없는 회원 (스냅샷 전에 삭제됨) 의 수정, 삭제는 이미 반영된 것
+            if (applied == null) {
+                return false;
+            }
+            // 삭제는 version 이 올라가지 않음 (통계에 있으면 아직 삭제 전)
+            if (type == EntityChangeType.DELETE) {
+                versions.put(id, null);
+                return true;
+            }
+            if (applied >= changed.getVersion()) {
+                return false;
+            }
+            versions.put(id, changed.getVersion());
+            return true;
+        }
+    }
+
+    private static class Aggregate {
+        private String teamName;
+        private long count;
+        private long sum;
+        // 나이 -> 인원수
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        private void add(int age, long members) {
+            count += members;
+            sum += (long) age * members;
+            ages.merge(age, members, Long::sum);
+        }
+
+        private void remove(int age) {
+            Long members = ages.get(age);
+            if (members == null) {
+                // 들고 있지 않은 회원이 빠짐 -> 다음 검증에서 맞춰짐
+                return;
+            }
+            count--;
+            sum -= age;
+            if (members == 1) {
+                ages.remove(age);
+            } else {
+                ages.put(age, members - 1);
+            }
+        }
+
+        private Integer min() {
+            return ages.isEmpty() ? null : ages.firstKey();
+        }
+
+        private Integer max() {
+            return ages.isEmpty() ? null : ages.lastKey();
+        }
+
+        // 나이별 인원수는 빼고 이름, count, sum, min, max 만 비교 (probe 결과와 비교)
+        private boolean sameSummary(Aggregate other) {
+            return other != null && count == other.count && sum == other.sum
+                && Objects.equals(teamName, other.teamName)
+                && Objects.equals(min(), other.min()) && Objects.equals(max(), other.max());
+        }
+
+        private TeamStatsDto toDto(Long teamId) {
+            return new TeamStatsDto(teamId, teamName, count, sum, min(), max());
+        }
+    }
+}
@@ -2,12 +2,29 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
 
     private String username;
+    // 회원명 접두사 / 부분 검색 (UsernameIndex 로 회원 id 를 먼저 찾음)
+    private String usernamePrefix;
+    private String usernameContains;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // 캐시 키로 쓰기 위해 검색에 영향이 없는 값(빈 문자열 등)을 null 로 정리한 복사본
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setUsernamePrefix(hasText(usernamePrefix) ? usernamePrefix : null);
+        normalized.setUsernameContains(hasText(usernameContains) ? usernameContains : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
@@ -0,0 +1,123 @@
+package study.querydsl.dto;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// MemberTeamDto 목록을 컬럼별 배열로 들고 있는 조회 결과 (MemberRepositoryCustom.searchColumns)
+// row 마다 DTO, Long, Integer 객체를 만들지 않고 id, age 는 primitive 배열에 담는다.
+// 팀은 row 마다 팀 코드(int) 만 가지고 있고 팀 id, 팀 이름은 코드 -> 팀 사전(teamIds, teamNames) 에서 찾는다. (코드 -1 은 팀 없음)
+public final class MemberTeamColumns {
+    public static final int NO_TEAM = -1;
+
+    private final int size;
+    private final long[] memberIds;
+    private final String[] usernames;
+    private final int[] ages;
+    private final int[] teamCodes;
+    private final long[] teamIds;
+    private final String[] teamNames;
+
+    public MemberTeamColumns(int size, long[] memberIds, String[] usernames, int[] ages,
+                             int[] teamCodes, long[] teamIds, String[] teamNames) {
+        this.size = size;
+        this.memberIds = memberIds;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.teamCodes = teamCodes;
+        this.teamIds = teamIds;
+        this.teamNames = teamNames;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int teamCount() {
+        return teamIds.length;
+    }
+
+    public long memberId(int row) {
+        return memberIds[checkRow(row)];
+    }
+
+    public String username(int row) {
+        return usernames[checkRow(row)];
+    }
+
+    public int age(int row) {
+        return ages[checkRow(row)];
+    }
+
+    public int teamCode(int row) {
+        return teamCodes[checkRow(row)];
+    }
+
+    public boolean hasTeam(int row) {
+        return teamCode(row) != NO_TEAM;
+    }
+
+    // 팀이 없으면 null
+    public Long teamId(int row) {
+        int code = teamCode(row);
+        return code == NO_TEAM ? null : teamIds[code];
+    }
+
+    public String teamName(int row) {
+        int code = teamCode(row);
+        return code == NO_TEAM ? null : teamNames[code];
+    }
+
+    // 기존 코드용 (row 하나를 DTO 로 만든다)
+    public MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(memberId(row), username(row), age(row), teamId(row), teamName(row));
+    }
+
+    // 기존 List<MemberTeamDto> 를 받는 코드용 adapter
+    // 요소는 꺼낼 때마다 만들어지므로 여러번 순회하면 toDtoList() 로 복사해서 사용
+    public List<MemberTeamDto> asDtoList() {
+        return new DtoListView();
+    }
+
+    public List<MemberTeamDto> toDtoList() {
+        return List.copyOf(asDtoList());
+    }
+
+    // 배열 그대로 넘겨줌 (size 이후는 쓰레기 값이므로 size 까지만 읽을 것, 수정 금지)
+    public long[] memberIdColumn() {
+        return memberIds;
+    }
+
+    public int[] ageColumn() {
+        return ages;
+    }
+
+    public int[] teamCodeColumn() {
+        return teamCodes;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberTeamColumns(size=" + size + ", teams=" + Arrays.toString(teamNames) + ")";
+    }
+
+    private final class DtoListView extends AbstractList<MemberTeamDto> implements RandomAccess {
+        @Override
+        public MemberTeamDto get(int index) {
+            return toDto(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.dto.common;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// totalCapped 가 true 면 totalElements 는 상한값이고 실제로는 그 이상 (ex. 10000+)
+// 상한이 현재 페이지의 끝과 같을 수 있으므로 (깊은 페이지) 상한이면 다음 페이지가 있는 것으로 본다.
+public class EstimatedPage<T> extends PageImpl<T> {
+    private final boolean totalCapped;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalCapped) {
+        super(content, pageable, total);
+        this.totalCapped = totalCapped;
+    }
+
+    public boolean isTotalCapped() {
+        return totalCapped;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return totalCapped || super.hasNext();
+    }
+
+    @Override
+    public boolean isLast() {
+        return !hasNext();
+    }
+}
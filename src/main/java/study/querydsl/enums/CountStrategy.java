@@ -0,0 +1,13 @@
+package study.querydsl.enums;
+
+// 페이징 조회시 count 쿼리를 어떻게 처리할지
+public enum CountStrategy {
+    // 매번 count 쿼리 실행
+    EXACT,
+    // 정규화된 검색 조건 별로 count 결과를 캐시 (TTL 만료)
+    CACHED,
+    // 상한(limit)까지만 세고 넘으면 상한값으로 응답 (ex. 10000+)
+    ESTIMATED,
+    // count 쿼리 없이 다음 페이지 여부만 (Slice)
+    NONE
+}
@@ -0,0 +1,7 @@
+package study.querydsl.enums;
+
+public enum EntityChangeType {
+    INSERT, UPDATE, DELETE,
+    // bulk update/delete 처럼 어떤 엔티티가 바뀌었는지 모르는 경우
+    BULK
+}
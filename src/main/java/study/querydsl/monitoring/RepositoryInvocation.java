@@ -0,0 +1,41 @@
+package study.querydsl.monitoring;
+
+// 현재 스레드에서 실행중인 repository 메서드 호출 정보
+// StatementCountingInspector 가 SQL 이 실행될 때마다 statementCount 를 올린다.
+final class RepositoryInvocation {
+    private static final ThreadLocal<RepositoryInvocation> CURRENT = new ThreadLocal<>();
+
+    private final RepositoryInvocation parent;
+    private long statementCount;
+
+    private RepositoryInvocation(RepositoryInvocation parent) {
+        this.parent = parent;
+    }
+
+    static RepositoryInvocation start() {
+        RepositoryInvocation invocation = new RepositoryInvocation(CURRENT.get());
+        CURRENT.set(invocation);
+        return invocation;
+    }
+
+    // repository 안에서 다른 repository 를 호출한 경우 바깥 호출에도 SQL 수를 더해줌
+    void end() {
+        if (parent == null) {
+            CURRENT.remove();
+            return;
+        }
+        parent.statementCount += statementCount;
+        CURRENT.set(parent);
+    }
+
+    long getStatementCount() {
+        return statementCount;
+    }
+
+    static void statementExecuted() {
+        RepositoryInvocation invocation = CURRENT.get();
+        if (invocation != null) {
+            invocation.statementCount++;
+        }
+    }
+}
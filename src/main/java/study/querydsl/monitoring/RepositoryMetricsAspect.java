@@ -0,0 +1,96 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamColumns;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// repository 메서드 별 실행 시간(p50, p99), 실행한 SQL 수, 조회한 row 수를 micrometer 로 기록
+// - repository.invocation (timer)
+// - repository.statements (summary)
+// - repository.rows (summary, List/Page/Slice/Optional/MemberTeamColumns 를 반환할 때만)
+// 태그: repository, method
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * study.querydsl.domain.repository.MemberRepositoryImpl.*(..))"
+        + " || execution(public * study.querydsl.domain.repository.MemberJpaRepository.*(..))"
+        + " || execution(public * study.querydsl.domain.repository.common.CustomQueryDslRepositorySupport+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Meters methodMeters = meters.computeIfAbsent(
+            ((MethodSignature) joinPoint.getSignature()).getMethod(),
+            method -> new Meters(meterRegistry, joinPoint.getTarget().getClass().getSimpleName(), method.getName())
+        );
+
+        RepositoryInvocation invocation = RepositoryInvocation.start();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                methodMeters.rows.record(rows);
+            }
+            return result;
+        } finally {
+            methodMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(invocation.getStatementCount());
+            invocation.end();
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof MemberTeamColumns) {
+            return ((MemberTeamColumns) result).size();
+        }
+        return -1;
+    }
+
+    private static class Meters {
+        private final Timer timer;
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+
+        Meters(MeterRegistry registry, String repository, String method) {
+            this.timer = Timer.builder("repository.invocation")
+                .tag("repository", repository)
+                .tag("method", method)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+            this.statements = DistributionSummary.builder("repository.statements")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(registry);
+            this.rows = DistributionSummary.builder("repository.rows")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(registry);
+        }
+    }
+}
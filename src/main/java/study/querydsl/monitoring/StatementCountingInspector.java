@@ -0,0 +1,19 @@
+package study.querydsl.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// SQL 을 바꾸지 않고 실행 횟수만 센다. (로그를 남기지 않으므로 항상 켜둬도 부담 없음)
+// 기존에 설정된 StatementInspector 가 있으면 그대로 이어서 호출
+public class StatementCountingInspector implements StatementInspector {
+    private final StatementInspector delegate;
+
+    public StatementCountingInspector(StatementInspector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RepositoryInvocation.statementExecuted();
+        return delegate != null ? delegate.inspect(sql) : sql;
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.monitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+@Configuration
+public class StatementInspectorConfig {
+
+    // 설정 파일에 hibernate.session_factory.statement_inspector 가 있으면 감싸서 같이 동작하게 함
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.put(
+            AvailableSettings.STATEMENT_INSPECTOR,
+            new StatementCountingInspector(configured(properties.get(AvailableSettings.STATEMENT_INSPECTOR)))
+        );
+    }
+
+    private static StatementInspector configured(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof StatementInspector) {
+            return (StatementInspector) value;
+        }
+        Class<?> type = value instanceof Class
+            ? (Class<?>) value
+            : ClassUtils.resolveClassName(value.toString(), StatementInspectorConfig.class.getClassLoader());
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// replica 는 같은 db 를 가리키는 별도 커넥션 풀로 확인
+@SpringBootTest(properties = "spring.datasource.replica.url=jdbc:h2:mem:querydsl;DB_CLOSE_DELAY=-1")
+class ReplicaDataSourceConfigTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    PrimaryReadTemplate primaryReads;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    @Test
+    public void readOnlyTransactionUsesReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            em.createQuery("select t from Team t", Team.class).getResultList();
+
+            // 트랜잭션이 끝날 때까지 커넥션을 잡고 있음
+            assertThat(activeConnections(replicaDataSource)).isEqualTo(1);
+            assertThat(activeConnections(primaryDataSource)).isZero();
+        });
+    }
+
+    @Test
+    public void readWriteTransactionUsesPrimary() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        readWrite.executeWithoutResult(status -> {
+            em.createQuery("select t from Team t", Team.class).getResultList();
+
+            assertThat(activeConnections(primaryDataSource)).isEqualTo(1);
+            assertThat(activeConnections(replicaDataSource)).isZero();
+        });
+    }
+
+    @Test
+    public void cacheFillReadUsesPrimary() {
+        // 캐시, 메모리 인덱스를 채우는 조회는 읽기 전용이어도 primary
+        primaryReads.execute(() -> {
+            em.createQuery("select t from Team t", Team.class).getResultList();
+
+            assertThat(activeConnections(primaryDataSource)).isEqualTo(1);
+            assertThat(activeConnections(replicaDataSource)).isZero();
+            return null;
+        });
+    }
+
+    // 풀은 처음 커넥션을 가져갈 때 만들어짐
+    private int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 조회가 다른 스레드에서 실행되므로 데이터를 커밋하고 테스트 후 정리한다.
+@SpringBootTest(properties = "member.async.enabled=true")
+@ExtendWith(CommittedDataCleanup.class)
+@AutoConfigureMockMvc
+class AsyncMemberControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+        });
+    }
+
+    @Test
+    public void searchMemberV2Async() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/async/v2/members").param("teamName", "teamA"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    public void searchMemberV2SliceAsync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/async/v2/members/slice").param("teamName", "teamA").param("countStrategy", "NONE"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    public void notModifiedAsync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/async/v3/members").param("teamName", "teamA"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String etag = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        // 동기 api 와 같은 ETag 로 304 (비동기로 넘기지 않음)
+        mockMvc.perform(get("/api/async/v3/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/api/v3/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+}
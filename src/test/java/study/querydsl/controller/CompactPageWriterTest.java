@@ -0,0 +1,54 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactPageWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CompactPageWriter writer = new CompactPageWriter(objectMapper);
+
+    private final List<MemberTeamDto> content = List.of(
+        new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+        new MemberTeamDto(2L, "member2", 20, null, null)
+    );
+
+    @Test
+    public void rowsTest() throws Exception {
+        JsonNode json = write(new PageImpl<>(content, PageRequest.of(0, 2), 5), false);
+
+        assertThat(json.get("content").get(0).get("username").asText()).isEqualTo("member1");
+        assertThat(json.get("content").get(1).get("teamId").isNull()).isTrue();
+        assertThat(json.get("totalElements").asLong()).isEqualTo(5);
+        assertThat(json.get("hasNext").asBoolean()).isTrue();
+        assertThat(json.has("pageable")).isFalse();
+    }
+
+    @Test
+    public void columnarTest() throws Exception {
+        JsonNode json = write(new SliceImpl<>(content, PageRequest.of(1, 2), false), true);
+
+        assertThat(json.get("memberId").get(1).asLong()).isEqualTo(2);
+        assertThat(json.get("age").get(0).asInt()).isEqualTo(10);
+        assertThat(json.get("teamName").get(1).isNull()).isTrue();
+        assertThat(json.get("page").asInt()).isEqualTo(1);
+        // Slice 는 전체 개수를 모름
+        assertThat(json.has("totalElements")).isFalse();
+    }
+
+    private JsonNode write(Slice<MemberTeamDto> page, boolean columnar) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(page, columnar, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
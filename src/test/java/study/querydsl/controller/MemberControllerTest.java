@@ -0,0 +1,124 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// DataVersion 은 커밋 후에 바뀌므로 데이터를 커밋하고 테스트 후 정리한다.
+@SpringBootTest
+@ExtendWith(CommittedDataCleanup.class)
+@AutoConfigureMockMvc
+class MemberControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private Team teamA;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+    }
+
+    @Test
+    public void notModifiedUntilDataChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/members").param("teamName", "teamA"))
+            .andExpect(status().isOk())
+            // 초 단위라 같은 초 안의 변경을 구분하지 못하므로 보내지 않음
+            .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        // 같은 버전이면 조회 없이 304
+        mockMvc.perform(get("/api/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        transactionTemplate.executeWithoutResult(status ->
+            em.persist(new Member("member2", 20, em.find(Team.class, teamA.getId()))));
+
+        mockMvc.perform(get("/api/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void v2KeepsPageAndSliceIsOptIn() throws Exception {
+        // v2 는 항상 정확한 count (Page)
+        mockMvc.perform(get("/api/v2/members").param("teamName", "teamA"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalElements").value(1));
+
+        // count 방식은 /v2/members/slice 에서만 고름
+        mockMvc.perform(get("/api/v2/members/slice").param("teamName", "teamA").param("countStrategy", "NONE"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    public void exportEndsEachRowWithNewline() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/members/export").param("teamName", "teamA"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        assertThat(body).startsWith("{").endsWith("}\n");
+        assertThat(body.split("\n")).hasSize(1);
+
+        // 결과가 없으면 빈 줄 없이 빈 body
+        result = mockMvc.perform(get("/api/v1/members/export").param("teamName", "none"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void keysetSizeFollowsPageableLimits() throws Exception {
+        // 1 보다 작으면 기본 크기 (20)
+        mockMvc.perform(get("/api/v4/members").param("size", "0"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.size").value(20))
+            .andExpect(jsonPath("$.content[0].username").value("member1"));
+
+        // 최대 크기 (2000) 를 넘으면 최대 크기로 (size + 1 overflow 없음)
+        mockMvc.perform(get("/api/v4/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.size").value(2000));
+    }
+}
@@ -0,0 +1,178 @@
+package study.querydsl.domain.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.concurrent.DbTaskExecutor;
+import study.querydsl.config.DbExecutorProperties;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.CommittedDataCleanup;
+import study.querydsl.support.StatementHook;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// count 쿼리를 다른 커넥션에서 실행하므로 데이터를 커밋하고 테스트 후 정리한다.
+// count 가 다시 실행되는지는 StatementHook 으로 확인
+@SpringBootTest(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=study.querydsl.support.StatementHook")
+@ExtendWith(CommittedDataCleanup.class)
+class MemberRepositoryParallelTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    DbTaskExecutor dbTaskExecutor;
+    @Autowired
+    DbExecutorProperties dbExecutorProperties;
+    @Autowired
+    MemberSearchProperties searchProperties;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @Test
+    public void sameResultAsSequential() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> parallel = memberRepository.searchPageParallel(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> sequential = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(parallel.getTotalElements()).isEqualTo(3);
+        assertThat(parallel.getContent()).isEqualTo(sequential.getContent());
+    }
+
+    @Test
+    public void lastPageSkipsCount() {
+        Page<MemberTeamDto> page = memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).hasSize(4);
+    }
+
+    @Test
+    public void calledFromExecutorTask() throws Exception {
+        // executor 의 모든 작업이 동시에 searchPageParallel 을 호출해도 count 를 기다리며 멈추지 않음
+        int concurrency = dbExecutorProperties.getConcurrency();
+        CountDownLatch allRunning = new CountDownLatch(concurrency);
+        List<CompletableFuture<Page<MemberTeamDto>>> pages = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            pages.add(dbTaskExecutor.submit(() -> {
+                allRunning.countDown();
+                awaitQuietly(allRunning);
+                return memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 2));
+            }));
+        }
+
+        for (CompletableFuture<Page<MemberTeamDto>> page : pages) {
+            assertThat(page.get(10, TimeUnit.SECONDS).getTotalElements()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void countFallsBackToCallerWhenExecutorIsBusy() throws Exception {
+        // executor 의 모든 슬롯을 막아서 count 작업이 시작하지 못하게 함
+        int concurrency = dbExecutorProperties.getConcurrency();
+        CountDownLatch allRunning = new CountDownLatch(concurrency);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Object>> blockers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            blockers.add(dbTaskExecutor.submit(() -> {
+                allRunning.countDown();
+                awaitQuietly(release);
+                return null;
+            }));
+        }
+        Duration countTimeout = searchProperties.getParallelCountTimeout();
+        searchProperties.setParallelCountTimeout(Duration.ofMillis(100));
+        try {
+            assertThat(allRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Page<MemberTeamDto> page = memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 2));
+            assertThat(page.getTotalElements()).isEqualTo(4);
+        } finally {
+            searchProperties.setParallelCountTimeout(countTimeout);
+            release.countDown();
+        }
+        for (CompletableFuture<Object> blocker : blockers) {
+            blocker.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void timedOutCountRunsOnce() throws Exception {
+        // count 작업이 시작하기 전에 timeout 이 나면 지금 스레드에서 세고, 밀려 있던 count 작업은 취소되어 실행하지 않음
+        int concurrency = dbExecutorProperties.getConcurrency();
+        CountDownLatch allRunning = new CountDownLatch(concurrency);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Object>> blockers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            blockers.add(dbTaskExecutor.submit(() -> {
+                allRunning.countDown();
+                awaitQuietly(release);
+                return null;
+            }));
+        }
+        Duration countTimeout = searchProperties.getParallelCountTimeout();
+        searchProperties.setParallelCountTimeout(Duration.ofMillis(100));
+        AtomicInteger lateCounts = new AtomicInteger();
+        try {
+            assertThat(allRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Page<MemberTeamDto> page = memberRepository.searchPageParallel(new MemberSearchCondition(), PageRequest.of(0, 2));
+            assertThat(page.getTotalElements()).isEqualTo(4);
+
+            StatementHook.once(sql -> sql.contains("count(member0_") && !sql.contains("group by"), lateCounts::incrementAndGet);
+        } finally {
+            searchProperties.setParallelCountTimeout(countTimeout);
+            release.countDown();
+        }
+        for (CompletableFuture<Object> blocker : blockers) {
+            blocker.get(5, TimeUnit.SECONDS);
+        }
+        // 밀려 있던 작업이 모두 빠진 뒤
+        dbTaskExecutor.submit(() -> null).get(5, TimeUnit.SECONDS);
+        StatementHook.clear();
+        assertThat(lateCounts).hasValue(0);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,15 +6,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.MemberSearchProperties;
 import study.querydsl.domain.entity.Member;
 import study.querydsl.domain.entity.QMember;
 import study.querydsl.domain.entity.Team;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.common.EstimatedPage;
+import study.querydsl.enums.CountStrategy;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -25,6 +32,8 @@ public class MemberRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    MemberSearchProperties properties;
 
     @Test
     public void basicTest() {
@@ -96,6 +105,248 @@ public class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void searchPageCountStrategyTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        Pageable pageable = PageRequest.of(0, 1);
+
+        Slice<MemberTeamDto> exact = memberRepository.searchPage(condition, pageable, CountStrategy.EXACT);
+        assertThat(((Page<MemberTeamDto>) exact).getTotalElements()).isEqualTo(2);
+
+        Slice<MemberTeamDto> cached = memberRepository.searchPage(condition, pageable, CountStrategy.CACHED);
+        assertThat(((Page<MemberTeamDto>) cached).getTotalElements()).isEqualTo(2);
+
+        // 쓰기 트랜잭션 안에서는 캐시를 쓰지 않으므로 커밋 전 변경도 count 에 반영
+        em.persist(new Member("member5", 50, teamB));
+        cached = memberRepository.searchPage(condition, pageable, CountStrategy.CACHED);
+        assertThat(((Page<MemberTeamDto>) cached).getTotalElements()).isEqualTo(3);
+
+        Slice<MemberTeamDto> estimated = memberRepository.searchPage(condition, pageable, CountStrategy.ESTIMATED);
+        assertThat(estimated).isInstanceOf(EstimatedPage.class);
+        assertThat(((EstimatedPage<MemberTeamDto>) estimated).getTotalElements()).isEqualTo(3);
+        assertThat(((EstimatedPage<MemberTeamDto>) estimated).isTotalCapped()).isFalse();
+
+        Slice<MemberTeamDto> none = memberRepository.searchPage(condition, pageable, CountStrategy.NONE);
+        assertThat(none).isNotInstanceOf(Page.class);
+        assertThat(none.hasNext()).isTrue();
+        assertThat(none.getContent()).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void estimatedPageDeepPageTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long estimatedCountLimit = properties.getEstimatedCountLimit();
+        properties.setEstimatedCountLimit(2);
+        try {
+            // 상한(2) 보다 깊은 페이지: 현재 페이지 끝(4) 까지 세고 그 뒤에 row 가 있으므로 상한값
+            EstimatedPage<MemberTeamDto> deep = (EstimatedPage<MemberTeamDto>) memberRepository
+                .searchPage(condition, PageRequest.of(1, 2), CountStrategy.ESTIMATED);
+            assertThat(deep.isTotalCapped()).isTrue();
+            assertThat(deep.getTotalElements()).isEqualTo(4);
+            assertThat(deep.hasNext()).isTrue();
+            assertThat(deep.isLast()).isFalse();
+
+            // 현재 페이지 끝 이후에 row 가 없으면 정확한 count
+            em.createQuery("delete from Member m where m.username = 'member5'").executeUpdate();
+            EstimatedPage<MemberTeamDto> last = (EstimatedPage<MemberTeamDto>) memberRepository
+                .searchPage(condition, PageRequest.of(1, 2), CountStrategy.ESTIMATED);
+            assertThat(last.isTotalCapped()).isFalse();
+            assertThat(last.getTotalElements()).isEqualTo(4);
+            assertThat(last.hasNext()).isFalse();
+            assertThat(last.isLast()).isTrue();
+        } finally {
+            properties.setEstimatedCountLimit(estimatedCountLimit);
+        }
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+
+        Long lastMemberId = first.getContent().get(first.getNumberOfElements() - 1).getMemberId();
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, lastMemberId, 3);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+    }
+
+    @Test
+    public void searchStreamTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        try (Stream<MemberTeamDto> rows = memberRepository.searchStream(condition)) {
+            List<String> usernames = rows.map(MemberTeamDto::getUsername).collect(Collectors.toList());
+            assertThat(usernames).containsExactlyInAnyOrder("member2", "member3", "member4");
+        }
+    }
+
+    @Test
+    public void searchColumnsTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        // flush 하지 않은 엔티티도 조회됨
+        MemberTeamColumns columns = memberRepository.searchColumns(condition);
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.teamCount()).isEqualTo(2);
+
+        // adapter 로 꺼낸 DTO 는 querydsl 조회 결과와 같음 (둘 다 정렬 없이 같은 조건)
+        assertThat(columns.asDtoList()).containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+        assertThat(columns.asDtoList()).extracting("teamName").containsExactlyInAnyOrder("teamA", "teamB", null);
+        for (int row = 0; row < columns.size(); row++) {
+            assertThat(columns.hasTeam(row)).isEqualTo(!columns.username(row).equals("member4"));
+        }
+
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.searchColumns(condition).toDtoList())
+            .extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void findAllByIdsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, null);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+
+        // 영속성 컨텍스트에 있는 회원은 같은 인스턴스를 돌려줌
+        Member loaded = em.find(Member.class, member2.getId());
+        List<Long> ids = List.of(member3.getId(), member1.getId(), -1L, member2.getId(), member3.getId());
+
+        List<Member> members = memberRepository.findAllByIds(ids);
+        assertThat(members).extracting("username").containsExactly("member3", "member1", "member2");
+        assertThat(members.get(2)).isSameAs(loaded);
+
+        List<MemberTeamDto> dtos = memberRepository.findMemberTeamDtosByIds(ids);
+        assertThat(dtos).extracting("username").containsExactly("member3", "member1", "member2");
+        assertThat(dtos).extracting("teamName").containsExactly(null, "teamA", "teamA");
+    }
+
+    @Test
+    public void bulkAddAgeTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        long affected = memberRepository.bulkAddAge(condition, 1);
+
+        assertThat(affected).isEqualTo(2);
+        // 영속성 컨텍스트가 비워져서 DB 값을 다시 읽어옴
+        assertThat(em.contains(member3)).isFalse();
+        assertThat(em.find(Member.class, member3.getId()).getAge()).isEqualTo(31);
+        assertThat(em.find(Member.class, member4.getId()).getAge()).isEqualTo(41);
+        assertThat(em.find(Member.class, member1.getId()).getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void bulkChangeTeamAndDeleteTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        MemberSearchCondition teamACondition = new MemberSearchCondition();
+        teamACondition.setTeamName("teamA");
+        assertThat(memberRepository.bulkChangeTeam(teamACondition, teamB.getId())).isEqualTo(2);
+
+        MemberSearchCondition teamBCondition = new MemberSearchCondition();
+        teamBCondition.setTeamName("teamB");
+        assertThat(memberRepository.search(teamBCondition)).hasSize(3);
+
+        teamBCondition.setAgeLoe(20);
+        assertThat(memberRepository.bulkDelete(teamBCondition)).isEqualTo(2);
+        assertThat(memberRepository.findAll()).extracting("username").containsExactly("member3");
+    }
+
     @Test
     public void queryDslPredicateExecutorTest() {
 
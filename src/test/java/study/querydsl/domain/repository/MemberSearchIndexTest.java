@@ -0,0 +1,171 @@
+package study.querydsl.domain.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.support.CapturingStatementInspector;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// v1 ~ v3 검색 쿼리가 인덱스를 타는지 h2 EXPLAIN 으로 확인
+// 실제로 실행된 SQL 을 모아서 EXPLAIN 하고, 실행 계획에 tableScan 이 있으면 실패
+// username (idx_member_username), teamName (idx_team_name -> idx_member_team_age) 이 들어간 조건만 확인
+// 나이만, 조건 없음, usernamePrefix / usernameContains 만 있는 조건은 맞는 인덱스가 없으므로 제외
+// (이름 검색은 DB 인덱스 대신 UsernameIndex 로 후보를 줄임)
+@SpringBootTest(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=study.querydsl.support.CapturingStatementInspector")
+@Transactional
+class MemberSearchIndexTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            Member member = new Member("member" + i, i);
+            member.setTeam(i % 2 == 0 ? teamA : teamB);
+            em.persist(member);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchByUsername() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertIndexScans(() -> memberJpaRepository.search(condition));
+        assertIndexScans(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 1)));
+        assertIndexScans(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    public void searchByTeamNameAndAge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        assertIndexScans(() -> memberJpaRepository.search(condition));
+        assertIndexScans(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3)));
+        assertIndexScans(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)));
+    }
+
+    @Test
+    public void searchByTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertSearchesUseIndex(condition);
+    }
+
+    @Test
+    public void searchByTeamNameAndAgeGoe() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(90);
+
+        assertSearchesUseIndex(condition);
+    }
+
+    @Test
+    public void searchByTeamNameAndAgeLoe() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(10);
+
+        assertSearchesUseIndex(condition);
+    }
+
+    @Test
+    public void searchByUsernameAndOthers() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(0);
+
+        assertSearchesUseIndex(condition);
+    }
+
+    private void assertSearchesUseIndex(MemberSearchCondition condition) {
+        assertIndexScans(() -> memberJpaRepository.search(condition));
+        assertIndexScans(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3)));
+        assertIndexScans(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)));
+    }
+
+    private void assertIndexScans(Runnable search) {
+        CapturingStatementInspector.clear();
+        search.run();
+        List<String> selects = CapturingStatementInspector.statements().stream()
+            .map(MemberSearchIndexTest::stripComment)
+            .filter(sql -> sql.toLowerCase().startsWith("select") && !sql.toLowerCase().contains("next value"))
+            .collect(Collectors.toList());
+        assertThat(selects).isNotEmpty();
+
+        for (String sql : selects) {
+            String plan = explain(sql);
+            assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> explain(connection, sql));
+    }
+
+    // 파라미터 타입에 맞춰 아무 값이나 넣고 EXPLAIN (실행 계획은 값과 상관 없음)
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData metaData = statement.getParameterMetaData();
+            for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                int type = metaData.getParameterType(i);
+                if (type == Types.VARCHAR || type == Types.CHAR) {
+                    statement.setString(i, "x");
+                } else {
+                    statement.setInt(i, 1);
+                }
+            }
+            List<String> lines = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    lines.add(rs.getString(1));
+                }
+            }
+            return String.join("\n", lines);
+        }
+    }
+
+    private static String stripComment(String sql) {
+        String trimmed = sql.trim();
+        if (trimmed.startsWith("/*")) {
+            return trimmed.substring(trimmed.indexOf("*/") + 2).trim();
+        }
+        return trimmed;
+    }
+}
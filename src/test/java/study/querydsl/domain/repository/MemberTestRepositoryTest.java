@@ -0,0 +1,75 @@
+package study.querydsl.domain.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.support.QueryCounter;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 4; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i * 10, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyTeamIsBatchFetched() {
+        // 회원 1번 + 팀 4개를 in 절로 1번 (default_batch_fetch_size)
+        long count = QueryCounter.of(em).count(() -> {
+            List<Member> members = memberTestRepository.basicSelect();
+            members.forEach(m -> m.getTeam().getName());
+        });
+
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    public void entityGraphLoadsTeamInOneQuery() {
+        long count = QueryCounter.of(em).count(() -> {
+            List<Member> members = memberTestRepository.basicSelectWithTeam();
+            members.forEach(m -> m.getTeam().getName());
+        });
+
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    public void entityGraphKeepsPagination() {
+        QueryCounter counter = QueryCounter.of(em);
+        Page<Member>[] page = new Page[1];
+
+        long count = counter.count(() -> {
+            page[0] = memberTestRepository.applyPaginationWithTeam(new MemberSearchCondition(), PageRequest.of(0, 3));
+            page[0].getContent().forEach(m -> m.getTeam().getName());
+        });
+
+        // 컨텐츠 1번 + count 1번
+        assertThat(count).isEqualTo(2);
+        assertThat(page[0].getContent()).hasSize(3);
+        assertThat(page[0].getTotalElements()).isEqualTo(4);
+    }
+}
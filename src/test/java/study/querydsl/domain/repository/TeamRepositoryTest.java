@@ -0,0 +1,112 @@
+package study.querydsl.domain.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.service.MemberService;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 2차 캐시는 커밋된 데이터만 들어가므로 트랜잭션 롤백 없이 직접 커밋하고 정리한다.
+// 트랜잭션 밖에서 repository 를 호출하면 호출마다 새 EntityManager 를 사용한다.
+@SpringBootTest
+@ExtendWith(CommittedDataCleanup.class)
+class TeamRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberService memberService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void teamSecondLevelCache() {
+        Team teamA = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            return team;
+        });
+        statistics.clear();
+
+        teamRepository.findById(teamA.getId());
+        teamRepository.findById(teamA.getId());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void teamNameQueryCache() {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("teamA")));
+        statistics.clear();
+
+        assertThat(teamRepository.findByName("teamA")).isPresent();
+        assertThat(teamRepository.findByName("teamA")).isPresent();
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void teamMembersCacheEvictedOnTeamChange() {
+        Team[] teams = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            return new Team[]{teamA, teamB};
+        });
+        Long teamAId = teams[0].getId();
+        Long teamBId = teams[1].getId();
+        // 두 팀의 members 컬렉션을 2차 캐시에 올려둠
+        assertThat(memberUsernames(teamAId)).containsExactly("member1");
+        assertThat(memberUsernames(teamBId)).isEmpty();
+
+        // 연관관계 주인(Member.team) 만 바뀜 (로딩되지 않은 Team.members 는 건드리지 않음)
+        Long memberId = transactionTemplate.execute(status ->
+            em.createQuery("select m.id from Member m where m.username = 'member1'", Long.class).getSingleResult());
+        memberService.changeTeam(memberId, teamBId);
+        assertThat(memberUsernames(teamAId)).isEmpty();
+        assertThat(memberUsernames(teamBId)).containsExactly("member1");
+
+        // 대량 적재처럼 Member.team 만 설정해서 insert
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member2 = new Member("member2", 20);
+            member2.setTeam(em.getReference(Team.class, teamAId));
+            em.persist(member2);
+        });
+        assertThat(memberUsernames(teamAId)).containsExactly("member2");
+    }
+
+    // 새 트랜잭션(새 영속성 컨텍스트) 에서 team.getMembers() 를 읽음
+    private List<String> memberUsernames(Long teamId) {
+        return transactionTemplate.execute(status -> em.find(Team.class, teamId).getMembers().stream()
+            .map(Member::getUsername)
+            .sorted()
+            .collect(Collectors.toList()));
+    }
+}
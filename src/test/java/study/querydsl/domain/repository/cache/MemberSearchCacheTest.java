@@ -0,0 +1,105 @@
+package study.querydsl.domain.repository.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.repository.MemberJpaRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 캐시는 커밋된 데이터만 대상으로 하므로 트랜잭션 롤백 없이 직접 커밋하고 정리한다.
+@SpringBootTest
+@ExtendWith(CommittedDataCleanup.class)
+class MemberSearchCacheTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void cacheHitAndInvalidateOnUpdate() {
+        Long memberId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            return member1.getId();
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        double hitsBefore = hitCount();
+        List<MemberTeamDto> first = memberJpaRepository.searchCached(condition);
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<MemberTeamDto> second = memberJpaRepository.searchCached(condition);
+        assertThat(second).isSameAs(first);
+        assertThat(hitCount() - hitsBefore).isEqualTo(1);
+        // 캐시 hit 은 트랜잭션을 시작하지 않음 (커넥션을 빌리지 않음)
+        assertThat(statistics.getTransactionCount()).isZero();
+        assertThat(statistics.getConnectCount()).isZero();
+
+        // 커밋되면 DataVersion 이 올라가서 새로 조회한다.
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(15));
+
+        List<MemberTeamDto> third = memberJpaRepository.searchCached(condition);
+        assertThat(third).isNotSameAs(first);
+        assertThat(third).extracting("age").containsExactlyInAnyOrder(15, 20);
+    }
+
+    @Test
+    public void cacheMissInsideReadOnlyTransactionUsesCurrentConnection() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<MemberTeamDto> first = readOnly.execute(status -> {
+            statistics.clear();
+            List<MemberTeamDto> results = memberJpaRepository.searchCached(condition);
+            // 새 트랜잭션(세션, 커넥션) 을 열지 않음
+            assertThat(statistics.getSessionOpenCount()).isZero();
+            return results;
+        });
+        assertThat(first).extracting("username").containsExactly("member1");
+
+        // replica 가 없으면 지금 커넥션이 primary 이므로 트랜잭션 안에서 채운 결과도 캐시됨
+        assertThat(memberJpaRepository.searchCached(condition)).isSameAs(first);
+    }
+
+    private double hitCount() {
+        return meterRegistry.get("cache.gets")
+            .tag("cache", "memberSearch")
+            .tag("result", "hit")
+            .functionCounter()
+            .count();
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.domain.repository.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamColumns;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 사전은 커밋 후 이벤트로 바뀌므로 데이터를 커밋하고 테스트 후 정리한다.
+@SpringBootTest
+@ExtendWith(CommittedDataCleanup.class)
+class TeamNameDictionaryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    TeamNameDictionary teamNames;
+    @Autowired
+    MemberRepository memberRepository;
+
+    private Long teamAId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            teamAId = teamA.getId();
+        });
+    }
+
+    @Test
+    public void sharedTeamNameTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        List<MemberTeamDto> second = memberRepository.search(condition);
+
+        // 같은 팀이면 조회 결과가 달라도 같은 String 인스턴스
+        String canonical = teamNames.get(teamAId);
+        assertThat(first).hasSize(2);
+        assertThat(first).allSatisfy(row -> assertThat(row.getTeamName()).isSameAs(canonical));
+        assertThat(second).allSatisfy(row -> assertThat(row.getTeamName()).isSameAs(canonical));
+
+        MemberTeamColumns columns = memberRepository.searchColumns(condition);
+        assertThat(columns.teamName(0)).isSameAs(canonical);
+    }
+
+    @Test
+    public void teamChangeTest() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamAId).setName("teamC"));
+
+        assertThat(teamNames.get(teamAId)).isEqualTo("teamC");
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("teamC");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamAId).executeUpdate();
+            em.remove(em.find(Team.class, teamAId));
+        });
+        assertThat(teamNames.get(teamAId)).isNull();
+    }
+}
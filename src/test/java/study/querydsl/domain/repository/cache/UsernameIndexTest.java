@@ -0,0 +1,193 @@
+package study.querydsl.domain.repository.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberSearchProperties;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.event.EntityChangedEvent;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.domain.repository.common.MemberConditionCompiler;
+import study.querydsl.domain.repository.common.MemberConditionCompiler.Resolved;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.entity.QMember.member;
+import static study.querydsl.support.Eventually.assertEventually;
+
+// 인덱스는 커밋 후 이벤트로 바뀌므로 데이터를 커밋하고 테스트 후 정리한다.
+// 인덱스는 기본으로 꺼져 있으므로 켜고 실행
+@SpringBootTest(properties = "member.search.username-index-enabled=true")
+@ExtendWith(CommittedDataCleanup.class)
+class UsernameIndexTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    UsernameIndex usernameIndex;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    MemberConditionCompiler conditionCompiler;
+    @Autowired
+    MemberSearchProperties properties;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Long aliceId;
+    private Long bobId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member alice = new Member("alice", 10);
+            em.persist(alice);
+            em.persist(new Member("alicia", 20));
+            Member bob = new Member("bob", 30);
+            em.persist(bob);
+            em.persist(new Member("carol_x", 40));
+            em.persist(new Member("carolxx", 50));
+            aliceId = alice.getId();
+            bobId = bob.getId();
+        });
+    }
+
+    @Test
+    public void prefixAndContainsTest() {
+        assertThat(usernameIndex.find("ali", null, 10)).hasSize(2);
+        assertThat(usernameIndex.find(null, "lic", 10)).hasSize(2);
+        assertThat(usernameIndex.find("ali", "ce", 10)).containsExactly(aliceId);
+        // 맞는 회원이 limit 을 넘으면 null
+        assertThat(usernameIndex.find("ali", null, 1)).isNull();
+        assertThat(usernameIndex.find(null, "rol", 1)).isNull();
+        // 접두사 없이 3글자 미만 부분 검색은 인덱스로 찾지 않음 (like)
+        assertThat(usernameIndex.find(null, "o", 10)).isNull();
+
+        assertThat(search("ali", null)).containsExactlyInAnyOrder("alice", "alicia");
+        assertThat(search(null, "ol_")).containsExactly("carol_x");
+        assertThat(search(null, "b")).containsExactly("bob");
+        assertThat(search("zzz", null)).isEmpty();
+    }
+
+    @Test
+    public void maxCandidatesTest() {
+        int maxCandidates = properties.getUsernameIndexMaxCandidates();
+        properties.setUsernameIndexMaxCandidates(1);
+        try {
+            // "rol" 을 가진 회원이 2명 -> 맞는 회원 수(limit) 와 상관없이 후보가 많으면 like 로
+            assertThat(usernameIndex.find(null, "rol", 10)).isNull();
+            assertThat(usernameIndex.find("car", null, 10)).isNull();
+            assertThat(usernameIndex.find("bo", null, 10)).containsExactly(bobId);
+            assertThat(search(null, "rol")).containsExactlyInAnyOrder("carol_x", "carolxx");
+        } finally {
+            properties.setUsernameIndexMaxCandidates(maxCandidates);
+        }
+    }
+
+    @Test
+    public void entityChangeTest() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, aliceId).setUsername("dave"));
+        assertThat(search("ali", null)).containsExactly("alicia");
+        assertThat(search("da", null)).containsExactly("dave");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("ali");
+        memberRepository.bulkDelete(condition);
+        // bulk 변경 후 다시 만드는건 별도 스레드에서
+        assertEventually(() -> assertThat(usernameIndex.find("ali", null, 10)).isEmpty());
+    }
+
+    @Test
+    public void driftTest() {
+        // 이벤트 없이 바뀐 데이터 (native 쿼리) -> 인덱스로 찾은 후보도 like 로 다시 거르므로 결과는 맞음
+        transactionTemplate.executeWithoutResult(status ->
+            em.createNativeQuery("update member set username = 'zedd' where member_id = " + bobId).executeUpdate());
+        assertThat(usernameIndex.find("bo", null, 10)).containsExactly(bobId);
+        assertThat(search("bo", null)).isEmpty();
+
+        // 새 이름은 인덱스에 없으므로 drift 검증 전까지는 빠짐 (UsernameIndex 참고)
+        assertThat(search("ze", null)).isEmpty();
+
+        // 이름 길이 합이 달라졌으므로 요약 비교에서 걸려서 전체를 다시 읽음
+        double before = meterRegistry.counter("username.index.drift").count();
+        usernameIndex.checkDrift();
+        assertThat(meterRegistry.counter("username.index.drift").count()).isEqualTo(before + 1);
+        assertThat(usernameIndex.find("bo", null, 10)).isEmpty();
+        assertThat(search("ze", null)).containsExactly("zedd");
+    }
+
+    @Test
+    public void probeTest() {
+        // 이벤트로 반영된 변경만 있으면 요약 값이 같으므로 전체를 다시 읽지 않음
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, aliceId).setUsername("alexander"));
+        double before = meterRegistry.counter("username.index.drift").count();
+        usernameIndex.checkDrift();
+        assertThat(meterRegistry.counter("username.index.drift").count()).isEqualTo(before);
+
+        // 길이가 같은 이름으로 바뀐 것은 요약 비교로는 알 수 없음 (full-check-interval 까지 남음)
+        transactionTemplate.executeWithoutResult(status ->
+            em.createNativeQuery("update member set username = 'bib' where member_id = " + bobId).executeUpdate());
+        usernameIndex.checkDrift();
+        assertThat(usernameIndex.find("bo", null, 10)).containsExactly(bobId);
+    }
+
+    @Test
+    public void bulkEventTest() {
+        transactionTemplate.executeWithoutResult(status ->
+            em.createNativeQuery("update member set username = 'alina' where member_id = " + bobId).executeUpdate());
+        assertThat(search("ali", null)).containsExactlyInAnyOrder("alice", "alicia");
+
+        // bulk 변경 이벤트를 받으면 다시 만들기 전이라도 like 로 조회하므로 빠지는 회원이 없음
+        eventPublisher.publishEvent(EntityChangedEvent.bulk(Member.class));
+        assertThat(search("ali", null)).containsExactlyInAnyOrder("alice", "alicia", "alina");
+        assertEventually(() -> assertThat(usernameIndex.isReady()).isTrue());
+        assertThat(usernameIndex.find("ali", null, 10)).hasSize(3);
+    }
+
+    @Test
+    public void resolvedConditionTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("ali");
+        Resolved resolved = conditionCompiler.resolve(condition);
+
+        // resolve 한 뒤에 인덱스가 바뀌어도 같은 검색의 컨텐츠와 count 는 같은 회원 id 후보로 조회
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, bobId).setUsername("alibob"));
+        assertThat(usernameIndex.find("ali", null, 10)).hasSize(3);
+
+        List<MemberTeamDto> content = conditionCompiler.contentQuery(resolved).fetch();
+        Long total = conditionCompiler.filterQuery(resolved).select(member.count()).fetchOne();
+        assertThat(content).extracting(MemberTeamDto::getUsername).containsExactlyInAnyOrder("alice", "alicia");
+        assertThat(total).isEqualTo(content.size());
+    }
+
+    @Test
+    public void writeTransactionTest() {
+        // 쓰기 트랜잭션 안에서는 커밋 전 회원도 like 로 조회됨
+        List<String> usernames = transactionTemplate.execute(status -> {
+            em.persist(new Member("alina", 60));
+            return search("ali", null);
+        });
+        assertThat(usernames).containsExactlyInAnyOrder("alice", "alicia", "alina");
+    }
+
+    private List<String> search(String prefix, String contains) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix(prefix);
+        condition.setUsernameContains(contains);
+        return memberRepository.search(condition).stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+    }
+}
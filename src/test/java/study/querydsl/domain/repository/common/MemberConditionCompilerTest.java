@@ -0,0 +1,87 @@
+package study.querydsl.domain.repository.common;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberConditionCompilerTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberConditionCompiler conditionCompiler;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, null));
+    }
+
+    @Test
+    public void sameShapeSameJpqlTest() {
+        // 값만 다르고 채워진 필드가 같으면 JPQL 도 같음
+        String teamA = conditionCompiler.contentQuery(condition("teamA", 10, null)).toString();
+        String teamB = conditionCompiler.contentQuery(condition("teamB", 30, null)).toString();
+        String ageOnly = conditionCompiler.contentQuery(condition(null, 30, null)).toString();
+
+        assertThat(teamA).isEqualTo(teamB);
+        assertThat(teamA).isNotEqualTo(ageOnly);
+    }
+
+    @Test
+    public void bindValuesTest() {
+        List<MemberTeamDto> teamB = conditionCompiler.contentQuery(condition("teamB", 35, null)).fetch();
+        List<MemberTeamDto> teamA = conditionCompiler.contentQuery(condition("teamA", null, 15)).fetch();
+        List<MemberTeamDto> all = conditionCompiler.contentQuery(new MemberSearchCondition()).fetch();
+
+        assertThat(teamB).extracting("username").containsExactly("member4");
+        assertThat(teamA).extracting("username").containsExactly("member1");
+        // 팀 조건이 없으면 팀이 없는 회원도 조회
+        assertThat(all).hasSize(5);
+        assertThat(conditionCompiler.filterQuery(condition("teamB", null, null)).fetchCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void queryPlanCacheTest() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        conditionCompiler.contentQuery(condition("teamA", 10, 20)).fetch();
+
+        statistics.clear();
+        conditionCompiler.contentQuery(condition("teamB", 30, 40)).fetch();
+
+        // 같은 shape 은 이미 만들어진 query plan 을 재사용
+        assertThat(statistics.getQueryPlanCacheMissCount()).isZero();
+        assertThat(statistics.getQueryPlanCacheHitCount()).isPositive();
+    }
+
+    private MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
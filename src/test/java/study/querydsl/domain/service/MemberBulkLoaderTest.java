@@ -0,0 +1,70 @@
+package study.querydsl.domain.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.event.DataVersion;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 적재는 트랜잭션을 나눠서 커밋하므로 테스트 후 직접 정리한다.
+@SpringBootTest
+@ExtendWith(CommittedDataCleanup.class)
+class MemberBulkLoaderTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    DataVersion dataVersion;
+
+    @Test
+    public void load() {
+        memberBulkLoader.load(3, 1_200);
+
+        Long memberCount = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        assertThat(memberCount).isEqualTo(1_200);
+
+        List<Object[]> perTeam = em.createQuery(
+                "select t.name, count(m) from Member m join m.team t group by t.name order by t.name", Object[].class)
+            .getResultList();
+        assertThat(perTeam).extracting(row -> row[0]).containsExactly("teamA", "teamB", "teamC");
+        assertThat(perTeam).extracting(row -> row[1]).containsOnly(400L);
+    }
+
+    @Test
+    public void publishesOneBulkEventPerEntity() {
+        long before = dataVersion.current();
+
+        memberBulkLoader.load(2, 1_200);
+
+        // row 마다가 아닌 Team, Member 한번씩
+        assertThat(dataVersion.current() - before).isEqualTo(2);
+    }
+
+    @Test
+    public void persistAfterLoadGetsNewId() {
+        memberBulkLoader.load(1, 120);
+
+        // 적재와 같은 sequence generator 를 쓰므로 이후 저장한 회원과 id 가 겹치지 않음
+        Long memberId = transactionTemplate.execute(status -> {
+            Member member = new Member("after", 10);
+            em.persist(member);
+            return member.getId();
+        });
+        Long sameId = em.createQuery("select count(m) from Member m where m.id = :id", Long.class)
+            .setParameter("id", memberId)
+            .getSingleResult();
+        assertThat(sameId).isEqualTo(1);
+        assertThat(em.createQuery("select count(m) from Member m", Long.class).getSingleResult()).isEqualTo(121);
+    }
+}
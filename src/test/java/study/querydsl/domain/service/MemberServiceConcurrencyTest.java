@@ -0,0 +1,95 @@
+package study.querydsl.domain.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.support.CommittedDataCleanup;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 여러 스레드가 같은 회원을 동시에 수정해도 수정이 사라지지 않는지 확인 (각 스레드가 커밋하므로 테스트 후 정리)
+@Slf4j
+@SpringBootTest(properties = "optimistic.retry.max-attempts=100")
+@ExtendWith(CommittedDataCleanup.class)
+class MemberServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 25;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Long memberId;
+    private List<Long> teamIds;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member = new Member("member1", 0, teamA);
+            em.persist(member);
+            memberId = member.getId();
+            teamIds = List.of(teamA.getId(), teamB.getId());
+        });
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        double conflictsBefore = count("optimistic.lock.conflicts");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int teamIndex = thread % teamIds.size();
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    memberService.addAge(memberId, 1);
+                    memberService.changeTeam(memberId, teamIds.get(teamIndex));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double conflicts = count("optimistic.lock.conflicts") - conflictsBefore;
+        log.info("{} updates in {}ms ({} ops/s), conflicts={}", THREADS * OPERATIONS * 2, elapsedMillis,
+            THREADS * OPERATIONS * 2 * 1000L / Math.max(1, elapsedMillis), conflicts);
+
+        Member member = transactionTemplate.execute(status -> em.find(Member.class, memberId));
+        // 나이 증가는 하나도 빠지지 않아야 함
+        assertThat(member.getAge()).isEqualTo(THREADS * OPERATIONS);
+        assertThat(member.getVersion()).isGreaterThanOrEqualTo((long) THREADS * OPERATIONS);
+    }
+
+    private double count(String name) {
+        return meterRegistry.find(name).counters().stream()
+            .mapToDouble(counter -> counter.count())
+            .sum();
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.domain.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.support.CommittedDataCleanup;
+import study.querydsl.support.StatementHook;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.support.Eventually.assertEventually;
+
+// 통계는 커밋 후 이벤트로 바뀌므로 데이터를 커밋하고 테스트 후 정리한다.
+// 다시 계산하는 도중의 커밋은 StatementHook 으로 통계 조회 SQL 직전에 끼워 넣음
+@SpringBootTest(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=study.querydsl.support.StatementHook")
+@ExtendWith(CommittedDataCleanup.class)
+class TeamStatisticsTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    TeamStatistics teamStatistics;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Long teamAId;
+    private Long teamBId;
+    private Long member2Id;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member2);
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @Test
+    public void incrementalUpdateTest() {
+        assertStats(teamAId, 2, 30, 10, 20);
+        assertStats(teamBId, 2, 70, 30, 40);
+
+        // 팀 이동: teamA 에서 빠지고 teamB 에 더해짐
+        memberService.changeTeam(member2Id, teamBId);
+        assertStats(teamAId, 1, 10, 10, 10);
+        assertStats(teamBId, 3, 90, 20, 40);
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, member2Id)));
+        assertStats(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void bulkChangeRecomputeTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        memberRepository.bulkAddAge(condition, 5);
+
+        // 재계산은 별도 스레드에서
+        assertEventually(() -> assertStats(teamBId, 2, 80, 35, 45));
+    }
+
+    @Test
+    public void noDriftTest() {
+        // 이벤트로 반영한 값과 DB 값이 같으면 다시 계산하지 않음
+        memberService.changeTeam(member2Id, teamBId);
+        double before = meterRegistry.counter("team.stats.drift").count();
+
+        teamStatistics.checkDrift();
+        assertThat(meterRegistry.counter("team.stats.drift").count()).isEqualTo(before);
+        assertStats(teamBId, 3, 90, 20, 40);
+    }
+
+    @Test
+    public void driftCheckTest() {
+        double before = meterRegistry.counter("team.stats.drift").count();
+        // 이벤트 없이 바뀐 데이터 (native 쿼리)
+        transactionTemplate.executeWithoutResult(status ->
+            em.createNativeQuery("update member set age = 99 where member_id = " + member2Id).executeUpdate());
+        assertStats(teamAId, 2, 30, 10, 20);
+
+        teamStatistics.checkDrift();
+        assertThat(meterRegistry.counter("team.stats.drift").count()).isEqualTo(before + 1);
+        assertStats(teamAId, 2, 109, 10, 99);
+    }
+
+    @Test
+    public void commitBeforeSnapshotTest() {
+        // 이벤트를 모으기 시작한 뒤, 통계를 읽기 전에 커밋 -> 스냅샷에도 있고 이벤트도 모임 (한번만 반영)
+        commitDuringRecompute("from team");
+        assertStats(teamAId, 1, 10, 10, 10);
+        assertStats(teamBId, 3, 90, 20, 40);
+    }
+
+    @Test
+    public void commitDuringSnapshotTest() {
+        // 회원 통계 쿼리 직전에 커밋 -> 스냅샷에 보이는지와 상관없이 한번만 반영
+        commitDuringRecompute("group by");
+        assertStats(teamAId, 1, 10, 10, 10);
+        assertStats(teamBId, 3, 90, 20, 40);
+    }
+
+    // 다시 계산하는 스레드는 스냅샷 트랜잭션 안이므로 커밋은 다른 스레드에서
+    private void commitDuringRecompute(String sqlFragment) {
+        StatementHook.once(sql -> sql.toLowerCase().contains(sqlFragment),
+            () -> CompletableFuture.runAsync(() -> memberService.changeTeam(member2Id, teamBId)).join());
+        try {
+            teamStatistics.recompute();
+        } finally {
+            StatementHook.clear();
+        }
+    }
+
+    private void assertStats(Long teamId, long count, long sum, int min, int max) {
+        List<TeamStatsDto> stats = teamStatistics.findAll();
+        TeamStatsDto team = stats.stream().filter(stat -> stat.getTeamId().equals(teamId)).findFirst().orElseThrow();
+        assertThat(team.getCount()).isEqualTo(count);
+        assertThat(team.getSum()).isEqualTo(sum);
+        assertThat(team.getAvg()).isEqualTo((double) sum / count);
+        assertThat(team.getMin()).isEqualTo(min);
+        assertThat(team.getMax()).isEqualTo(max);
+    }
+}
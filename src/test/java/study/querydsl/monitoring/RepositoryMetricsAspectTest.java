@@ -0,0 +1,95 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.repository.MemberJpaRepository;
+import study.querydsl.domain.repository.MemberRepository;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void recordsStatementsAndRows() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // 다른 테스트에서 먼저 기록됐을 수 있으므로 증가량으로 확인
+        memberJpaRepository.search(condition);
+        long count = timer().count();
+        double statementTotal = summary("repository.statements").totalAmount();
+        double rowTotal = summary("repository.rows").totalAmount();
+
+        memberJpaRepository.search(condition);
+
+        assertThat(timer().count()).isEqualTo(count + 1);
+        assertThat(summary("repository.statements").totalAmount() - statementTotal).isEqualTo(1);
+        assertThat(summary("repository.rows").totalAmount() - rowTotal).isEqualTo(2);
+    }
+
+    @Test
+    public void recordsColumnarStatementsAndRows() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // JDBC 로 직접 읽는 조회도 statement 수와 row 수가 기록됨
+        memberRepository.searchColumns(condition);
+        double statementTotal = summary("repository.statements", "MemberRepositoryImpl", "searchColumns").totalAmount();
+        double rowTotal = summary("repository.rows", "MemberRepositoryImpl", "searchColumns").totalAmount();
+
+        memberRepository.searchColumns(condition);
+
+        assertThat(summary("repository.statements", "MemberRepositoryImpl", "searchColumns").totalAmount() - statementTotal)
+            .isEqualTo(1);
+        assertThat(summary("repository.rows", "MemberRepositoryImpl", "searchColumns").totalAmount() - rowTotal)
+            .isEqualTo(2);
+    }
+
+    private Timer timer() {
+        return meterRegistry.get("repository.invocation")
+            .tags("repository", "MemberJpaRepository", "method", "search")
+            .timer();
+    }
+
+    private DistributionSummary summary(String name) {
+        return summary(name, "MemberJpaRepository", "search");
+    }
+
+    private DistributionSummary summary(String name, String repository, String method) {
+        return meterRegistry.get(name)
+            .tags("repository", repository, "method", method)
+            .summary();
+    }
+}
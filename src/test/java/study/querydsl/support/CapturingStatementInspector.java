@@ -0,0 +1,29 @@
+package study.querydsl.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 실행되는 SQL 을 모아두는 테스트용 StatementInspector
+// hibernate.session_factory.statement_inspector 에 클래스 이름으로 등록해서 사용
+public class CapturingStatementInspector implements StatementInspector {
+    private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        statements.clear();
+    }
+
+    public static List<String> statements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+}
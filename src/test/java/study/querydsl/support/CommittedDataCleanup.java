@@ -0,0 +1,39 @@
+package study.querydsl.support;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.entity.Member;
+import study.querydsl.domain.entity.Team;
+import study.querydsl.domain.event.EntityChangedEvent;
+import study.querydsl.domain.repository.cache.TeamNameDictionary;
+import study.querydsl.domain.repository.cache.UsernameIndex;
+import study.querydsl.domain.service.TeamStatistics;
+
+import javax.persistence.EntityManager;
+
+// 데이터를 직접 커밋하는 테스트의 정리 (@ExtendWith(CommittedDataCleanup.class))
+// 테스트가 끝나면 회원, 팀을 지우고 2차 캐시를 비운 뒤 메모리에 들고 있는 값(DataVersion, UsernameIndex, TeamStatistics, TeamNameDictionary) 도 DB 에 맞춘다.
+// jpql delete 는 엔티티 이벤트가 없으므로 bulk 이벤트를 직접 발행하고, 다음 테스트가 바로 쓸 수 있게 다시 만드는 것까지 기다림
+public class CommittedDataCleanup implements AfterEachCallback {
+
+    @Override
+    public void afterEach(ExtensionContext extensionContext) {
+        ApplicationContext context = SpringExtension.getApplicationContext(extensionContext);
+        EntityManager em = context.getBean(EntityManager.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        context.publishEvent(EntityChangedEvent.bulk(Member.class));
+        context.publishEvent(EntityChangedEvent.bulk(Team.class));
+        context.getBean(UsernameIndex.class).rebuild();
+        context.getBean(TeamStatistics.class).recompute();
+        context.getBean(TeamNameDictionary.class).reload();
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.support;
+
+import java.time.Duration;
+
+// 별도 스레드에서 반영되는 값 (ex. bulk 변경 후 TeamStatistics 재계산) 을 확인할 때
+// timeout 안에 assertion 이 통과할 때까지 다시 확인한다.
+public final class Eventually {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private Eventually() {
+    }
+
+    public static void assertEventually(Runnable assertion) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManager;
+
+// 실행된 SQL 수를 세는 테스트 도우미 (hibernate.generate_statistics 필요)
+// ex) assertThat(QueryCounter.of(em).count(() -> repository.basicSelect())).isEqualTo(1);
+public class QueryCounter {
+    private final Statistics statistics;
+
+    private QueryCounter(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public static QueryCounter of(EntityManager em) {
+        return new QueryCounter(em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics());
+    }
+
+    public long count(Runnable work) {
+        statistics.clear();
+        work.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
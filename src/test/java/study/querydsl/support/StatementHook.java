@@ -0,0 +1,41 @@
+package study.querydsl.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.function.Predicate;
+
+// 특정 SQL 이 실행되기 직전에 한번 끼어드는 테스트용 StatementInspector
+// hibernate.session_factory.statement_inspector 에 클래스 이름으로 등록해서 사용
+// ex) StatementHook.once(sql -> sql.contains("group by"), () -> 다른 스레드에서 커밋);
+public class StatementHook implements StatementInspector {
+    private static Predicate<String> matcher;
+    private static Runnable action;
+
+    @Override
+    public String inspect(String sql) {
+        Runnable run = take(sql);
+        if (run != null) {
+            run.run();
+        }
+        return sql;
+    }
+
+    public static synchronized void once(Predicate<String> matcher, Runnable action) {
+        StatementHook.matcher = matcher;
+        StatementHook.action = action;
+    }
+
+    public static synchronized void clear() {
+        matcher = null;
+        action = null;
+    }
+
+    private static synchronized Runnable take(String sql) {
+        if (matcher == null || !matcher.test(sql)) {
+            return null;
+        }
+        Runnable run = action;
+        clear();
+        return run;
+    }
+}